@@ -0,0 +1,434 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.materialshadowninepatch.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates density specific shadow nine-patch images and matching
+ * {@code spotShadowDrawablesList} / {@code ambientShadowDrawablesList} arrays.
+ *
+ * Each {@code *.properties} file in {@link #getConfigDir()} is a config. Only the
+ * configs which have been changed since the last run are regenerated. A missing config
+ * directory is treated as empty (outputs of previously generated configs are removed).
+ * The {@code name} (resource name prefix) must be unique across the configs.
+ */
+public class GenerateShadowNinePatchesTask extends DefaultTask {
+    // NOTE: increment this value when the output of the generator is changed
+    private static final String GENERATOR_VERSION = "2";
+
+    private static final String CONFIG_FILE_EXTENSION = ".properties";
+    private static final String FINGERPRINT_FILE_EXTENSION = ".sha1";
+    private static final String MANIFEST_FILE_EXTENSION = ".outputs";
+
+    private File mConfigDir;
+    private File mOutputDir;
+    private int mThreadCount = Runtime.getRuntime().availableProcessors();
+
+    @Optional
+    @InputDirectory
+    public File getConfigDir() {
+        return (mConfigDir != null && mConfigDir.isDirectory()) ? mConfigDir : null;
+    }
+
+    public void setConfigDir(File configDir) {
+        mConfigDir = configDir;
+    }
+
+    @OutputDirectory
+    public File getOutputDir() {
+        return mOutputDir;
+    }
+
+    public void setOutputDir(File outputDir) {
+        mOutputDir = outputDir;
+    }
+
+    // NOTE: not an input; the number of threads does not affect the outputs
+    public int getThreadCount() {
+        return mThreadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        mThreadCount = Math.max(1, threadCount);
+    }
+
+    @TaskAction
+    public void generate() throws IOException {
+        final File stateDir = getTemporaryDir();
+        final File configDir = getConfigDir();
+        final File[] configFiles = (configDir != null) ? listFiles(configDir, CONFIG_FILE_EXTENSION) : new File[0];
+        final List<String> configNames = new ArrayList<String>();
+        final List<ShadowNinePatchConfig> configs = new ArrayList<ShadowNinePatchConfig>();
+        final Map<String, File> resourceNamePrefixes = new HashMap<String, File>();
+
+        for (File configFile : configFiles) {
+            final ShadowNinePatchConfig config = ShadowNinePatchConfig.load(configFile);
+
+            // outputs are named by the prefix, so configs sharing it would overwrite (and delete) each other's files
+            final File conflictingConfigFile = resourceNamePrefixes.put(config.getName(), configFile);
+            if (conflictingConfigFile != null) {
+                throw new GradleException(
+                        "Duplicate shadow config name '" + config.getName() + "': " +
+                                conflictingConfigFile.getName() + ", " + configFile.getName());
+            }
+
+            configNames.add(stripExtension(configFile, CONFIG_FILE_EXTENSION));
+            configs.add(config);
+        }
+
+        // remove outputs of deleted configs
+        for (File manifestFile : listFiles(stateDir, MANIFEST_FILE_EXTENSION)) {
+            final String configName = stripExtension(manifestFile, MANIFEST_FILE_EXTENSION);
+
+            if (!configNames.contains(configName)) {
+                getLogger().info("Removing outputs of deleted shadow config: " + configName);
+                deleteOutputs(stateDir, configName);
+            }
+        }
+
+        // remove outputs of changed configs before generating any of them, so that
+        // a renamed prefix can be taken over by another config without losing its files
+        final List<String> fingerprints = new ArrayList<String>();
+
+        for (int i = 0; i < configFiles.length; i++) {
+            final String configName = configNames.get(i);
+            final String fingerprint = computeFingerprint(configFiles[i]);
+
+            if (isUpToDate(stateDir, configName, fingerprint)) {
+                getLogger().info("Shadow config is up-to-date: " + configName);
+                fingerprints.add(null);
+            } else {
+                deleteOutputs(stateDir, configName);
+                fingerprints.add(fingerprint);
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(mThreadCount);
+
+        try {
+            for (int i = 0; i < configFiles.length; i++) {
+                final String configName = configNames.get(i);
+                final String fingerprint = fingerprints.get(i);
+
+                if (fingerprint == null) {
+                    continue;
+                }
+
+                getLogger().lifecycle("Generating shadow nine-patches: " + configName);
+
+                final List<File> outputs = generate(executor, configs.get(i));
+
+                writeManifest(new File(stateDir, configName + MANIFEST_FILE_EXTENSION), outputs);
+                writeText(new File(stateDir, configName + FINGERPRINT_FILE_EXTENSION), fingerprint);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<File> generate(ExecutorService executor, final ShadowNinePatchConfig config) throws IOException {
+        final List<File> outputs = new ArrayList<File>();
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        boolean succeeded = false;
+
+        try {
+            for (String density : config.getDensities()) {
+                final File drawableDir = new File(mOutputDir, "drawable-" + density);
+                final float scale = ShadowNinePatchConfig.getDensityScale(density);
+
+                if (!drawableDir.isDirectory() && !drawableDir.mkdirs()) {
+                    throw new IOException("Failed to create directory: " + drawableDir);
+                }
+
+                for (int level = 1; level <= config.getMaxLevel(); level++) {
+                    final File ambientFile = new File(drawableDir, getDrawableName(config, "ambient", level) + ".9.png");
+                    final File spotFile = new File(drawableDir, getDrawableName(config, "spot", level) + ".9.png");
+                    final int contentSize = Math.round(config.getContentSize() * scale);
+                    final float cornerRadius = config.getCornerRadius() * scale;
+                    final float ambientBlurRadius = level * config.getAmbientShadowBlurRatio() * scale;
+                    final float spotBlurRadius = level * config.getSpotShadowBlurRatio() * scale;
+
+                    outputs.add(ambientFile);
+                    outputs.add(spotFile);
+
+                    futures.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            ShadowNinePatchRasterizer.render(ambientFile, contentSize, cornerRadius, ambientBlurRadius, config.getAmbientShadowAlpha());
+                            return null;
+                        }
+                    }));
+                    futures.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            ShadowNinePatchRasterizer.render(spotFile, contentSize, cornerRadius, spotBlurRadius, config.getSpotShadowAlpha());
+                            return null;
+                        }
+                    }));
+                }
+            }
+
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new GradleException("Interrupted while generating shadow nine-patches", e);
+                } catch (ExecutionException e) {
+                    throw new GradleException("Failed to generate shadow nine-patches: " + config.getName(), e.getCause());
+                }
+            }
+
+            // write arrays only after all images have been rendered successfully
+            final File valuesDir = new File(mOutputDir, "values");
+            if (!valuesDir.isDirectory() && !valuesDir.mkdirs()) {
+                throw new IOException("Failed to create directory: " + valuesDir);
+            }
+
+            final File arraysFile = new File(valuesDir, config.getName() + "_shadow_arrays.xml");
+            outputs.add(arraysFile);
+            writeText(arraysFile, generateArraysXml(config));
+
+            succeeded = true;
+        } finally {
+            if (!succeeded) {
+                // partial outputs are not listed in any manifest, so remove them here
+                awaitQuietly(futures);
+                deleteFiles(outputs);
+            }
+        }
+
+        return outputs;
+    }
+
+    private static void awaitQuietly(List<Future<Void>> futures) {
+        boolean interrupted = false;
+
+        for (Future<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteFiles(List<File> files) {
+        for (File file : files) {
+            // noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private static String getDrawableName(ShadowNinePatchConfig config, String type, int level) {
+        return config.getName() + "_" + type + "_shadow_z" + level;
+    }
+
+    private static String generateArraysXml(ShadowNinePatchConfig config) {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        sb.append("<!-- Generated by ").append(GenerateShadowNinePatchesTask.class.getSimpleName()).append(". DO NOT EDIT. -->\n");
+        sb.append("<resources>\n");
+
+        for (String type : new String[]{"ambient", "spot"}) {
+            sb.append("\n");
+            sb.append("    <array name=\"").append(config.getName()).append("_").append(type).append("_shadow_drawables\">\n");
+            sb.append("        <item>@null</item>\n");
+            for (int level = 1; level <= config.getMaxLevel(); level++) {
+                sb.append("        <item>@drawable/").append(getDrawableName(config, type, level)).append("</item>\n");
+            }
+            sb.append("    </array>\n");
+        }
+
+        sb.append("\n");
+        sb.append("</resources>\n");
+
+        return sb.toString();
+    }
+
+    private static boolean isUpToDate(File stateDir, String configName, String fingerprint) throws IOException {
+        final File fingerprintFile = new File(stateDir, configName + FINGERPRINT_FILE_EXTENSION);
+        final File manifestFile = new File(stateDir, configName + MANIFEST_FILE_EXTENSION);
+
+        if (!fingerprintFile.isFile() || !manifestFile.isFile()) {
+            return false;
+        }
+
+        if (!fingerprint.equals(readLines(fingerprintFile).get(0))) {
+            return false;
+        }
+
+        for (String path : readLines(manifestFile)) {
+            if (!new File(path).isFile()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void deleteOutputs(File stateDir, String configName) throws IOException {
+        final File fingerprintFile = new File(stateDir, configName + FINGERPRINT_FILE_EXTENSION);
+        final File manifestFile = new File(stateDir, configName + MANIFEST_FILE_EXTENSION);
+
+        if (manifestFile.isFile()) {
+            for (String path : readLines(manifestFile)) {
+                // noinspection ResultOfMethodCallIgnored
+                new File(path).delete();
+            }
+        }
+
+        // noinspection ResultOfMethodCallIgnored
+        manifestFile.delete();
+        // noinspection ResultOfMethodCallIgnored
+        fingerprintFile.delete();
+    }
+
+    private String computeFingerprint(File configFile) throws IOException {
+        final MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new GradleException("SHA-1 is not available", e);
+        }
+
+        digest.update(GENERATOR_VERSION.getBytes("UTF-8"));
+        digest.update(mOutputDir.getAbsolutePath().getBytes("UTF-8"));
+
+        final InputStream is = new FileInputStream(configFile);
+        try {
+            final byte[] buffer = new byte[4096];
+            int n;
+            while ((n = is.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        } finally {
+            is.close();
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+
+        return sb.toString();
+    }
+
+    private static File[] listFiles(File dir, String extension) {
+        final List<File> files = new ArrayList<File>();
+        final File[] children = dir.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                if (child.isFile() && child.getName().endsWith(extension)) {
+                    files.add(child);
+                }
+            }
+        }
+
+        final File[] result = files.toArray(new File[files.size()]);
+        Arrays.sort(result);
+
+        return result;
+    }
+
+    private static String stripExtension(File file, String extension) {
+        final String name = file.getName();
+        return name.substring(0, name.length() - extension.length());
+    }
+
+    private static void writeManifest(File file, List<File> outputs) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+
+        for (File output : outputs) {
+            sb.append(output.getAbsolutePath()).append("\n");
+        }
+
+        writeText(file, sb.toString());
+    }
+
+    private static void writeText(File file, String text) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        final List<String> lines = new ArrayList<String>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() > 0) {
+                    lines.add(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        if (lines.isEmpty()) {
+            lines.add("");
+        }
+
+        return lines;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.materialshadowninepatch.gradle;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Shadow nine-patch generator configuration (loaded from a .properties file).
+ *
+ * Sizes are in dp. The blur ratios are the extents of the shadows outside of the
+ * {@code contentSize} square per level; the defaults produce images of about the same
+ * size as the bundled {@code ms9_*_shadow_z*} nine-patches.
+ */
+public class ShadowNinePatchConfig {
+    private static final String[] DEFAULT_DENSITIES = {"ldpi", "mdpi", "tvdpi", "hdpi", "xhdpi", "xxhdpi", "xxxhdpi"};
+
+    private final String mName;
+    private final int mMaxLevel;
+    private final float mContentSize;
+    private final float mCornerRadius;
+    private final float mAmbientShadowAlpha;
+    private final float mAmbientShadowBlurRatio;
+    private final float mSpotShadowAlpha;
+    private final float mSpotShadowBlurRatio;
+    private final List<String> mDensities;
+
+    public ShadowNinePatchConfig(
+            String name, int maxLevel, float contentSize, float cornerRadius,
+            float ambientShadowAlpha, float ambientShadowBlurRatio,
+            float spotShadowAlpha, float spotShadowBlurRatio,
+            List<String> densities) {
+        if (!name.matches("[a-z][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid resource name prefix: " + name);
+        }
+        if (maxLevel < 1) {
+            throw new IllegalArgumentException("maxLevel must be >= 1 (" + name + ")");
+        }
+        if (contentSize < 1.0f) {
+            throw new IllegalArgumentException("contentSize must be >= 1 (" + name + ")");
+        }
+        if (cornerRadius < 0.0f) {
+            throw new IllegalArgumentException("cornerRadius must be >= 0 (" + name + ")");
+        }
+        for (String density : densities) {
+            // validate density names
+            getDensityScale(density);
+        }
+
+        mName = name;
+        mMaxLevel = maxLevel;
+        mContentSize = contentSize;
+        mCornerRadius = cornerRadius;
+        mAmbientShadowAlpha = ambientShadowAlpha;
+        mAmbientShadowBlurRatio = ambientShadowBlurRatio;
+        mSpotShadowAlpha = spotShadowAlpha;
+        mSpotShadowBlurRatio = spotShadowBlurRatio;
+        mDensities = Collections.unmodifiableList(new ArrayList<String>(densities));
+    }
+
+    public static ShadowNinePatchConfig load(File file) throws IOException {
+        final Properties props = new Properties();
+        final InputStream is = new FileInputStream(file);
+
+        try {
+            props.load(is);
+        } finally {
+            is.close();
+        }
+
+        final String defaultName = file.getName().replaceFirst("\\.properties$", "");
+
+        final List<String> densities = new ArrayList<String>();
+        final String densitiesValue = props.getProperty("densities");
+
+        if (densitiesValue != null) {
+            for (String density : densitiesValue.split(",")) {
+                if (density.trim().length() > 0) {
+                    densities.add(density.trim());
+                }
+            }
+        } else {
+            Collections.addAll(densities, DEFAULT_DENSITIES);
+        }
+
+        return new ShadowNinePatchConfig(
+                props.getProperty("name", defaultName).trim(),
+                Integer.parseInt(props.getProperty("maxLevel", "18").trim()),
+                Float.parseFloat(props.getProperty("contentSize", "16").trim()),
+                Float.parseFloat(props.getProperty("cornerRadius", "2").trim()),
+                Float.parseFloat(props.getProperty("ambientShadowAlpha", "0.12").trim()),
+                Float.parseFloat(props.getProperty("ambientShadowBlurRatio", "0.6").trim()),
+                Float.parseFloat(props.getProperty("spotShadowAlpha", "0.24").trim()),
+                Float.parseFloat(props.getProperty("spotShadowBlurRatio", "1.27").trim()),
+                densities);
+    }
+
+    public static float getDensityScale(String density) {
+        if ("ldpi".equals(density)) {
+            return 0.75f;
+        } else if ("mdpi".equals(density)) {
+            return 1.0f;
+        } else if ("tvdpi".equals(density)) {
+            return 1.33125f;
+        } else if ("hdpi".equals(density)) {
+            return 1.5f;
+        } else if ("xhdpi".equals(density)) {
+            return 2.0f;
+        } else if ("xxhdpi".equals(density)) {
+            return 3.0f;
+        } else if ("xxxhdpi".equals(density)) {
+            return 4.0f;
+        } else {
+            throw new IllegalArgumentException("Unknown density: " + density);
+        }
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public int getMaxLevel() {
+        return mMaxLevel;
+    }
+
+    public float getContentSize() {
+        return mContentSize;
+    }
+
+    public float getCornerRadius() {
+        return mCornerRadius;
+    }
+
+    public float getAmbientShadowAlpha() {
+        return mAmbientShadowAlpha;
+    }
+
+    public float getAmbientShadowBlurRatio() {
+        return mAmbientShadowBlurRatio;
+    }
+
+    public float getSpotShadowAlpha() {
+        return mSpotShadowAlpha;
+    }
+
+    public float getSpotShadowBlurRatio() {
+        return mSpotShadowBlurRatio;
+    }
+
+    public List<String> getDensities() {
+        return mDensities;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.materialshadowninepatch.gradle;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+
+import java.io.File;
+
+/**
+ * Adds {@code generateShadowNinePatches} task to the project.
+ *
+ * <pre>
+ * apply plugin: 'com.h6ah4i.materialshadowninepatch.generator'
+ *
+ * android.sourceSets.main.res.srcDir generateShadowNinePatches.outputDir
+ * preBuild.dependsOn generateShadowNinePatches
+ * </pre>
+ */
+public class ShadowNinePatchGeneratorPlugin implements Plugin<Project> {
+    public static final String TASK_NAME = "generateShadowNinePatches";
+
+    @Override
+    public void apply(Project project) {
+        final GenerateShadowNinePatchesTask task = project.getTasks().create(TASK_NAME, GenerateShadowNinePatchesTask.class);
+
+        task.setGroup("build");
+        task.setDescription("Generates shadow nine-patch resources from the configs in 'shadow-configs' directory.");
+        task.setConfigDir(project.file("shadow-configs"));
+        task.setOutputDir(new File(project.getBuildDir(), "generated/res/shadowninepatch"));
+    }
+}
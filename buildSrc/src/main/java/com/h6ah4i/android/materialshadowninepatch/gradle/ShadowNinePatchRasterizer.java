@@ -0,0 +1,180 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.materialshadowninepatch.gradle;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Pure Java rasterizer of blurred round rect shadow nine-patch images.
+ */
+public class ShadowNinePatchRasterizer {
+    private static final int SUPER_SAMPLING = 4;
+    private static final int NINE_PATCH_MARKER_COLOR = 0xff000000;
+
+    private ShadowNinePatchRasterizer() {
+    }
+
+    /**
+     * Renders a shadow nine-patch and writes it as a PNG file (including 1px nine-patch markers).
+     *
+     * The shape is a {@code contentSize} square, like the bundled nine-patches. When the blur radius
+     * is larger than a half of it, the stretchable center row/column is slightly fainter than
+     * the edge of a large shape would be.
+     *
+     * @param file         output file (should be named as *.9.png)
+     * @param contentSize  size of the shape (= padding area) in pixels
+     * @param cornerRadius corner radius in pixels
+     * @param blurRadius   blur radius (= extent of the shadow outside of the shape) in pixels
+     * @param alpha        shadow opacity [0.0, 1.0]
+     */
+    public static void render(File file, int contentSize, float cornerRadius, float blurRadius, float alpha) throws IOException {
+        final BufferedImage image = render(contentSize, cornerRadius, blurRadius, alpha);
+
+        if (!ImageIO.write(image, "png", file)) {
+            throw new IOException("No PNG image writer available");
+        }
+    }
+
+    static BufferedImage render(int contentSize, float cornerRadius, float blurRadius, float alpha) {
+        final int kernelRadius = (int) Math.ceil(Math.max(blurRadius, 0.0f));
+        final float sigma = kernelRadius / 3.0f;
+        final int corner = (int) Math.ceil(cornerRadius);
+
+        final int shapeSize = Math.max(contentSize, 2 * corner + 1);
+        final int size = shapeSize + 2 * kernelRadius;
+
+        float[] mask = rasterizeRoundRect(size, kernelRadius, shapeSize, cornerRadius);
+
+        if (kernelRadius > 0) {
+            mask = blur(mask, size, sigma, kernelRadius);
+        }
+
+        final BufferedImage image = new BufferedImage(size + 2, size + 2, BufferedImage.TYPE_INT_ARGB);
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                final int a = Math.min(Math.max((int) (mask[y * size + x] * alpha * 255 + 0.5f), 0), 255);
+                image.setRGB(x + 1, y + 1, (a << 24));
+            }
+        }
+
+        // stretchable area (left, top); the center pixel (odd size) or the two center pixels (even size)
+        for (int i = 1 + (size - 1) / 2; i <= 1 + size / 2; i++) {
+            image.setRGB(i, 0, NINE_PATCH_MARKER_COLOR);
+            image.setRGB(0, i, NINE_PATCH_MARKER_COLOR);
+        }
+
+        // padding (content) area (right, bottom); equals to the shape bounds
+        for (int i = 0; i < shapeSize; i++) {
+            image.setRGB(1 + kernelRadius + i, size + 1, NINE_PATCH_MARKER_COLOR);
+            image.setRGB(size + 1, 1 + kernelRadius + i, NINE_PATCH_MARKER_COLOR);
+        }
+
+        return image;
+    }
+
+    private static float[] rasterizeRoundRect(int size, int offset, int shapeSize, float cornerRadius) {
+        final float[] mask = new float[size * size];
+        final float left = offset;
+        final float top = offset;
+        final float right = offset + shapeSize;
+        final float bottom = offset + shapeSize;
+        final float r = Math.min(cornerRadius, shapeSize * 0.5f);
+        final float invSamples = 1.0f / (SUPER_SAMPLING * SUPER_SAMPLING);
+
+        for (int y = offset; y < offset + shapeSize; y++) {
+            for (int x = offset; x < offset + shapeSize; x++) {
+                int count = 0;
+
+                for (int sy = 0; sy < SUPER_SAMPLING; sy++) {
+                    for (int sx = 0; sx < SUPER_SAMPLING; sx++) {
+                        final float px = x + (sx + 0.5f) / SUPER_SAMPLING;
+                        final float py = y + (sy + 0.5f) / SUPER_SAMPLING;
+
+                        if (isInsideRoundRect(px, py, left, top, right, bottom, r)) {
+                            count++;
+                        }
+                    }
+                }
+
+                mask[y * size + x] = count * invSamples;
+            }
+        }
+
+        return mask;
+    }
+
+    private static boolean isInsideRoundRect(float px, float py, float left, float top, float right, float bottom, float r) {
+        final float cx = Math.min(Math.max(px, left + r), right - r);
+        final float cy = Math.min(Math.max(py, top + r), bottom - r);
+        final float dx = px - cx;
+        final float dy = py - cy;
+
+        return (dx * dx + dy * dy) <= (r * r);
+    }
+
+    private static float[] blur(float[] src, int size, float sigma, int kernelRadius) {
+        final float[] kernel = new float[kernelRadius * 2 + 1];
+        float sum = 0.0f;
+
+        for (int i = -kernelRadius; i <= kernelRadius; i++) {
+            final float v = (float) Math.exp(-(i * i) / (2.0f * sigma * sigma));
+            kernel[i + kernelRadius] = v;
+            sum += v;
+        }
+        for (int i = 0; i < kernel.length; i++) {
+            kernel[i] /= sum;
+        }
+
+        final float[] tmp = new float[size * size];
+        final float[] dest = new float[size * size];
+
+        // horizontal pass
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                float v = 0.0f;
+                for (int k = -kernelRadius; k <= kernelRadius; k++) {
+                    final int xx = x + k;
+                    if (xx >= 0 && xx < size) {
+                        v += src[y * size + xx] * kernel[k + kernelRadius];
+                    }
+                }
+                tmp[y * size + x] = v;
+            }
+        }
+
+        // vertical pass
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                float v = 0.0f;
+                for (int k = -kernelRadius; k <= kernelRadius; k++) {
+                    final int yy = y + k;
+                    if (yy >= 0 && yy < size) {
+                        v += tmp[yy * size + x] * kernel[k + kernelRadius];
+                    }
+                }
+                dest[y * size + x] = v;
+            }
+        }
+
+        return dest;
+    }
+}
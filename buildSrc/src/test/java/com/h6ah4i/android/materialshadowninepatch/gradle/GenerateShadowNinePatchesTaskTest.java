@@ -0,0 +1,231 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.materialshadowninepatch.gradle;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GenerateShadowNinePatchesTaskTest {
+    private static final long OLD_TIMESTAMP = 1000000000000L;
+
+    @Rule
+    public TemporaryFolder mTempFolder = new TemporaryFolder();
+
+    private File mConfigDir;
+    private File mOutputDir;
+    private GenerateShadowNinePatchesTask mTask;
+
+    @Before
+    public void setUp() {
+        final Project project = ProjectBuilder.builder().withProjectDir(mTempFolder.getRoot()).build();
+
+        project.getPlugins().apply(ShadowNinePatchGeneratorPlugin.class);
+
+        mTask = (GenerateShadowNinePatchesTask) project.getTasks().getByName(ShadowNinePatchGeneratorPlugin.TASK_NAME);
+        mTask.setThreadCount(2);
+        mConfigDir = project.file("shadow-configs");
+        mOutputDir = mTask.getOutputDir();
+    }
+
+    @Test
+    public void missingConfigDirectoryGeneratesNothing() throws IOException {
+        assertNull(mTask.getConfigDir());
+
+        mTask.generate();
+
+        assertEquals(0, countFiles(mOutputDir));
+    }
+
+    @Test
+    public void generatesImagesAndArrays() throws IOException {
+        writeConfig("card.properties", "name=test_card\nmaxLevel=2\ndensities=mdpi,xhdpi\n");
+
+        mTask.generate();
+
+        for (String density : new String[]{"mdpi", "xhdpi"}) {
+            for (int level = 1; level <= 2; level++) {
+                assertTrue(output("drawable-" + density, "test_card_ambient_shadow_z" + level + ".9.png").isFile());
+                assertTrue(output("drawable-" + density, "test_card_spot_shadow_z" + level + ".9.png").isFile());
+            }
+        }
+
+        final String arrays = readText(output("values", "test_card_shadow_arrays.xml"));
+
+        assertTrue(arrays.contains("<array name=\"test_card_spot_shadow_drawables\">"));
+        assertTrue(arrays.contains("<array name=\"test_card_ambient_shadow_drawables\">"));
+        assertTrue(arrays.contains("<item>@null</item>"));
+        assertTrue(arrays.contains("<item>@drawable/test_card_spot_shadow_z2</item>"));
+        assertEquals(2 * 2 * 2 + 1, countFiles(mOutputDir));
+    }
+
+    @Test
+    public void unchangedConfigIsNotRegenerated() throws IOException {
+        writeConfig("card.properties", "name=test_card\nmaxLevel=1\ndensities=mdpi\n");
+        mTask.generate();
+
+        final File image = output("drawable-mdpi", "test_card_spot_shadow_z1.9.png");
+        assertTrue(image.setLastModified(OLD_TIMESTAMP));
+
+        mTask.generate();
+
+        assertEquals(OLD_TIMESTAMP, image.lastModified());
+    }
+
+    @Test
+    public void deletedOutputIsRegenerated() throws IOException {
+        writeConfig("card.properties", "name=test_card\nmaxLevel=1\ndensities=mdpi\n");
+        mTask.generate();
+
+        final File image = output("drawable-mdpi", "test_card_spot_shadow_z1.9.png");
+        assertTrue(image.delete());
+
+        mTask.generate();
+
+        assertTrue(image.isFile());
+    }
+
+    @Test
+    public void changedConfigIsRegenerated() throws IOException {
+        writeConfig("card.properties", "name=test_card\nmaxLevel=2\ndensities=mdpi\n");
+        mTask.generate();
+
+        final File image1 = output("drawable-mdpi", "test_card_spot_shadow_z1.9.png");
+        final File image2 = output("drawable-mdpi", "test_card_spot_shadow_z2.9.png");
+        assertTrue(image1.setLastModified(OLD_TIMESTAMP));
+
+        writeConfig("card.properties", "name=test_card\nmaxLevel=1\ndensities=mdpi\n");
+        mTask.generate();
+
+        assertTrue(image1.lastModified() != OLD_TIMESTAMP);
+        assertFalse(image2.exists());
+        assertFalse(readText(output("values", "test_card_shadow_arrays.xml")).contains("test_card_spot_shadow_z2"));
+    }
+
+    @Test
+    public void outputsOfDeletedConfigAreRemoved() throws IOException {
+        writeConfig("card1.properties", "name=card1\nmaxLevel=1\ndensities=mdpi\n");
+        writeConfig("card2.properties", "name=card2\nmaxLevel=1\ndensities=mdpi\n");
+        mTask.generate();
+
+        assertTrue(new File(mConfigDir, "card2.properties").delete());
+        mTask.generate();
+
+        assertTrue(output("values", "card1_shadow_arrays.xml").isFile());
+        assertFalse(output("values", "card2_shadow_arrays.xml").exists());
+        assertFalse(output("drawable-mdpi", "card2_spot_shadow_z1.9.png").exists());
+        assertEquals(3, countFiles(mOutputDir));
+    }
+
+    @Test
+    public void duplicateNamesAreRejected() throws IOException {
+        writeConfig("card1.properties", "name=card\nmaxLevel=1\ndensities=mdpi\n");
+        writeConfig("card2.properties", "name=card\nmaxLevel=2\ndensities=mdpi\n");
+
+        try {
+            mTask.generate();
+            fail();
+        } catch (GradleException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("card1.properties, card2.properties"));
+        }
+
+        assertEquals(0, countFiles(mOutputDir));
+    }
+
+    @Test
+    public void nameGivenUpByAnotherConfigCanBeTakenOver() throws IOException {
+        writeConfig("card1.properties", "name=card_b\nmaxLevel=1\ndensities=mdpi\n");
+        writeConfig("card2.properties", "name=card_c\nmaxLevel=1\ndensities=mdpi\n");
+        mTask.generate();
+
+        // card1 takes over card_c from card2; removing the old outputs of card2 must not delete them
+        writeConfig("card1.properties", "name=card_c\nmaxLevel=1\ndensities=mdpi\n");
+        writeConfig("card2.properties", "name=card_d\nmaxLevel=1\ndensities=mdpi\n");
+        mTask.generate();
+
+        assertTrue(output("values", "card_c_shadow_arrays.xml").isFile());
+        assertTrue(output("drawable-mdpi", "card_c_spot_shadow_z1.9.png").isFile());
+        assertTrue(output("values", "card_d_shadow_arrays.xml").isFile());
+        assertFalse(output("values", "card_b_shadow_arrays.xml").exists());
+    }
+
+    private File output(String dirName, String fileName) {
+        return new File(new File(mOutputDir, dirName), fileName);
+    }
+
+    private void writeConfig(String fileName, String text) throws IOException {
+        if (!mConfigDir.isDirectory()) {
+            assertTrue(mConfigDir.mkdirs());
+        }
+
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(new File(mConfigDir, fileName)), "UTF-8");
+
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String readText(File file) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sb.append(line).append("\n");
+            }
+        } finally {
+            reader.close();
+        }
+
+        return sb.toString();
+    }
+
+    private static int countFiles(File dir) {
+        final File[] children = dir.listFiles();
+        int count = 0;
+
+        if (children != null) {
+            for (File child : children) {
+                count += child.isDirectory() ? countFiles(child) : 1;
+            }
+        }
+
+        return count;
+    }
+}
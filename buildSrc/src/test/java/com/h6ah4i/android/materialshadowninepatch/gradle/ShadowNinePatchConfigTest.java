@@ -0,0 +1,90 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.materialshadowninepatch.gradle;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class ShadowNinePatchConfigTest {
+    @Rule
+    public TemporaryFolder mTempFolder = new TemporaryFolder();
+
+    @Test
+    public void loadAppliesDefaults() throws IOException {
+        final ShadowNinePatchConfig config = ShadowNinePatchConfig.load(writeConfig("my_card.properties", ""));
+
+        assertEquals("my_card", config.getName());
+        assertEquals(18, config.getMaxLevel());
+        assertEquals(16.0f, config.getContentSize(), 0.0f);
+        assertEquals(2.0f, config.getCornerRadius(), 0.0f);
+        assertEquals(0.12f, config.getAmbientShadowAlpha(), 0.0f);
+        assertEquals(0.6f, config.getAmbientShadowBlurRatio(), 0.0f);
+        assertEquals(0.24f, config.getSpotShadowAlpha(), 0.0f);
+        assertEquals(1.27f, config.getSpotShadowBlurRatio(), 0.0f);
+        assertEquals(Arrays.asList("ldpi", "mdpi", "tvdpi", "hdpi", "xhdpi", "xxhdpi", "xxxhdpi"), config.getDensities());
+    }
+
+    @Test
+    public void loadReadsProperties() throws IOException {
+        final ShadowNinePatchConfig config = ShadowNinePatchConfig.load(writeConfig("a.properties",
+                "name=card\nmaxLevel=4\ncontentSize=12\ncornerRadius=3\ndensities= mdpi , xxhdpi\n"));
+
+        assertEquals("card", config.getName());
+        assertEquals(4, config.getMaxLevel());
+        assertEquals(12.0f, config.getContentSize(), 0.0f);
+        assertEquals(3.0f, config.getCornerRadius(), 0.0f);
+        assertEquals(Arrays.asList("mdpi", "xxhdpi"), config.getDensities());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidResourceNamePrefixIsRejected() throws IOException {
+        ShadowNinePatchConfig.load(writeConfig("a.properties", "name=Card\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownDensityIsRejected() throws IOException {
+        ShadowNinePatchConfig.load(writeConfig("a.properties", "name=card\ndensities=mdpi,xxxxhdpi\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroMaxLevelIsRejected() throws IOException {
+        ShadowNinePatchConfig.load(writeConfig("a.properties", "name=card\nmaxLevel=0\n"));
+    }
+
+    private File writeConfig(String fileName, String text) throws IOException {
+        final File file = new File(mTempFolder.getRoot(), fileName);
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.materialshadowninepatch.gradle;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShadowNinePatchRasterizerTest {
+    private static final int MARKER = 0xff000000;
+
+    @Test
+    public void imageSizeIncludesShadowExtentAndMarkers() {
+        final BufferedImage image = ShadowNinePatchRasterizer.render(16, 2.0f, 10.5f, 0.24f);
+
+        // 16 (content) + 2 * 11 (extent) + 2 (markers)
+        assertEquals(40, image.getWidth());
+        assertEquals(40, image.getHeight());
+    }
+
+    @Test
+    public void contentIsNotSmallerThanRoundedCorners() {
+        final BufferedImage image = ShadowNinePatchRasterizer.render(4, 3.5f, 0.0f, 0.24f);
+
+        // 2 * ceil(3.5) + 1 (content) + 2 (markers)
+        assertEquals(11, image.getWidth());
+    }
+
+    @Test
+    public void stretchMarkersAreAtCenterOfEvenSizedImage() {
+        final BufferedImage image = ShadowNinePatchRasterizer.render(16, 2.0f, 10.0f, 0.24f);
+
+        // 36px (+ markers); center pixels are 17 and 18 (+1 for the marker column/row)
+        assertMarkers(image, true, 18, 19);
+        assertMarkers(image, false, 18, 19);
+    }
+
+    @Test
+    public void stretchMarkerIsAtCenterOfOddSizedImage() {
+        final BufferedImage image = ShadowNinePatchRasterizer.render(17, 2.0f, 0.0f, 0.24f);
+
+        assertMarkers(image, true, 9, 9);
+        assertMarkers(image, false, 9, 9);
+    }
+
+    @Test
+    public void paddingMarkersCoverContent() {
+        final BufferedImage image = ShadowNinePatchRasterizer.render(16, 2.0f, 10.0f, 0.24f);
+        final int last = image.getWidth() - 1;
+
+        for (int i = 1; i < last; i++) {
+            final boolean inContent = (i >= 11 && i < 11 + 16);
+
+            assertEquals("bottom " + i, inContent, image.getRGB(i, last) == MARKER);
+            assertEquals("right " + i, inContent, image.getRGB(last, i) == MARKER);
+        }
+
+        // corners of the marker frame are always transparent
+        assertEquals(0, image.getRGB(0, 0));
+        assertEquals(0, image.getRGB(last, 0));
+        assertEquals(0, image.getRGB(0, last));
+        assertEquals(0, image.getRGB(last, last));
+    }
+
+    @Test
+    public void shadowIsBlackWithSpecifiedOpacity() {
+        final BufferedImage image = ShadowNinePatchRasterizer.render(16, 0.0f, 0.0f, 0.5f);
+
+        // without blur, the shape is filled with the specified opacity
+        assertEquals(0x80000000, image.getRGB(8, 8));
+        assertEquals(0x80000000, image.getRGB(1, 1));
+    }
+
+    @Test
+    public void blurredShadowFadesOutTowardsImageEdges() {
+        final BufferedImage image = ShadowNinePatchRasterizer.render(16, 2.0f, 12.0f, 0.24f);
+        final int center = image.getWidth() / 2;
+        final int edgeAlpha = alpha(image, 1, center);
+        final int centerAlpha = alpha(image, center, center);
+
+        assertEquals(0, edgeAlpha);
+        assertTrue(centerAlpha > 0 && centerAlpha <= (int) (0.24f * 255 + 0.5f));
+
+        for (int x = 2; x <= center; x++) {
+            assertTrue("x = " + x, alpha(image, x - 1, center) <= alpha(image, x, center));
+        }
+    }
+
+    private static void assertMarkers(BufferedImage image, boolean horizontal, int first, int last) {
+        final int size = horizontal ? image.getWidth() : image.getHeight();
+
+        for (int i = 1; i < size - 1; i++) {
+            final int color = horizontal ? image.getRGB(i, 0) : image.getRGB(0, i);
+            assertEquals((horizontal ? "top " : "left ") + i, (i >= first && i <= last), color == MARKER);
+        }
+    }
+
+    private static int alpha(BufferedImage image, int x, int y) {
+        return image.getRGB(x, y) >>> 24;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.example.materialshadowninepatch;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.v7.app.ActionBarActivity;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+import com.h6ah4i.android.materialshadowninepatch.MaterialShadowContainerView;
+
+/**
+ * Runs {@link ShadowListBenchmark} for each shadow rendering mode (compat shadow is forced).
+ *
+ * Can be started from command line, results are also written to logcat;
+ * <pre>
+ * adb shell am start -n com.h6ah4i.android.example.materialshadowninepatch/.BenchmarkActivity --ez auto_start true
+ * adb logcat -s ShadowListBenchmark
+ * </pre>
+ */
+public class BenchmarkActivity extends ActionBarActivity implements View.OnClickListener {
+    private static final String TAG = "ShadowListBenchmark";
+
+    public static final String EXTRA_AUTO_START = "auto_start";
+    public static final String EXTRA_ITEM_COUNT = "item_count";
+    public static final String EXTRA_FRAME_COUNT = "frame_count";
+
+    private static final int DEFAULT_ITEM_COUNT = 5000;
+    private static final int DEFAULT_FRAME_COUNT = 300;
+
+    private static final int[] RENDERING_MODES = new int[]{
+            MaterialShadowContainerView.SHADOW_RENDERING_MODE_STANDARD,
+            MaterialShadowContainerView.SHADOW_RENDERING_MODE_MERGED,
+            MaterialShadowContainerView.SHADOW_RENDERING_MODE_DISTANCE_FIELD,
+    };
+
+    private final Handler mHandler = new Handler();
+    private Button mButtonRun;
+    private TextView mTextResults;
+    private int mNextModeIndex = -1;
+    private ShadowListBenchmark mBenchmark;
+
+    private final Runnable mRunBenchmarkStepRunnable = new Runnable() {
+        @Override
+        public void run() {
+            runBenchmarkStep();
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_benchmark);
+
+        mButtonRun = (Button) findViewById(R.id.button_run_benchmark);
+        mButtonRun.setOnClickListener(this);
+
+        mTextResults = (TextView) findViewById(R.id.text_benchmark_results);
+
+        if (savedInstanceState == null && getIntent().getBooleanExtra(EXTRA_AUTO_START, false)) {
+            startBenchmark();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mHandler.removeCallbacksAndMessages(null);
+    }
+
+    @Override
+    public void onClick(View v) {
+        switch (v.getId()) {
+            case R.id.button_run_benchmark:
+                startBenchmark();
+                break;
+        }
+    }
+
+    private void startBenchmark() {
+        if (mNextModeIndex >= 0) {
+            return;
+        }
+
+        mButtonRun.setEnabled(false);
+        mTextResults.setText("");
+        mNextModeIndex = 0;
+
+        postBenchmarkStep();
+    }
+
+    private void postBenchmarkStep() {
+        // run each step (a batch of frames) in a separate message to keep the UI responsive
+        mHandler.post(mRunBenchmarkStepRunnable);
+    }
+
+    private void runBenchmarkStep() {
+        if (mBenchmark == null) {
+            final int itemCount = getIntent().getIntExtra(EXTRA_ITEM_COUNT, DEFAULT_ITEM_COUNT);
+            final int frameCount = getIntent().getIntExtra(EXTRA_FRAME_COUNT, DEFAULT_FRAME_COUNT);
+            final DisplayMetrics metrics = getResources().getDisplayMetrics();
+
+            mBenchmark = new ShadowListBenchmark(
+                    this, itemCount, frameCount, RENDERING_MODES[mNextModeIndex],
+                    metrics.widthPixels, metrics.heightPixels);
+        }
+
+        if (!mBenchmark.runStep()) {
+            postBenchmarkStep();
+            return;
+        }
+
+        final String result = mBenchmark.getResult();
+
+        mBenchmark = null;
+
+        for (String line : result.split("\n")) {
+            Log.i(TAG, line);
+        }
+
+        mTextResults.append(result);
+        mTextResults.append("\n");
+
+        mNextModeIndex += 1;
+
+        if (mNextModeIndex < RENDERING_MODES.length) {
+            postBenchmarkStep();
+        } else {
+            mNextModeIndex = -1;
+            mButtonRun.setEnabled(true);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.example.materialshadowninepatch;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.view.LayoutInflater;
+
+/**
+ * Context wrapper which counts drawable loads of the views created with it.
+ */
+public class DrawableLoadCountingContext extends ContextWrapper {
+    private final CountingResources mResources;
+    private LayoutInflater mInflater;
+
+    public DrawableLoadCountingContext(Context base) {
+        super(base);
+
+        final Resources res = base.getResources();
+        mResources = new CountingResources(res);
+    }
+
+    public int getDrawableLoadCount() {
+        return mResources.mDrawableLoadCount;
+    }
+
+    @Override
+    public Resources getResources() {
+        return mResources;
+    }
+
+    @Override
+    public Object getSystemService(String name) {
+        if (LAYOUT_INFLATER_SERVICE.equals(name)) {
+            if (mInflater == null) {
+                mInflater = LayoutInflater.from(getBaseContext()).cloneInContext(this);
+            }
+            return mInflater;
+        }
+        return super.getSystemService(name);
+    }
+
+    private static class CountingResources extends Resources {
+        int mDrawableLoadCount;
+
+        @SuppressWarnings("deprecation")
+        public CountingResources(Resources res) {
+            super(res.getAssets(), res.getDisplayMetrics(), res.getConfiguration());
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public Drawable getDrawable(int id) throws NotFoundException {
+            mDrawableLoadCount += 1;
+            return super.getDrawable(id);
+        }
+    }
+}
@@ -16,8 +16,11 @@
 
 package com.h6ah4i.android.example.materialshadowninepatch;
 
+import android.content.Intent;
 import android.os.Bundle;
 import android.support.v7.app.ActionBarActivity;
+import android.view.Menu;
+import android.view.MenuItem;
 
 public class MainActivity extends ActionBarActivity {
 
@@ -31,4 +34,20 @@ public class MainActivity extends ActionBarActivity {
                     .commit();
         }
     }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_main, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case R.id.menu_benchmark:
+                startActivity(new Intent(this, BenchmarkActivity.class));
+                return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
 }
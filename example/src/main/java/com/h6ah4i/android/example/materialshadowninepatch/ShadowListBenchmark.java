@@ -0,0 +1,380 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.example.materialshadowninepatch;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.os.Build;
+import android.os.Debug;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.h6ah4i.android.materialshadowninepatch.MaterialShadowContainerView;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Offscreen benchmark of a RecyclerView which contains thousands of shadowed rows (compat shadow is forced).
+ *
+ * Frames are driven manually (measure / layout / draw), so the results do not depend on the display
+ * refresh rate and can be compared across library versions. Drawing is recorded into a {@link Picture}
+ * instead of being rasterized, so the "record" time reflects the number of draw operations like display
+ * list recording does. Rasterization and GPU cost are not measured, and native (RenderNode) shadows
+ * cannot be recorded this way.
+ *
+ * The benchmark is run step by step with {@link #runStep()}, so the caller can split it across messages.
+ */
+public class ShadowListBenchmark {
+    private static final float[] ELEVATIONS = new float[]{0, 1, 2, 3, 4, 6, 8, 12, 16}; // [dp]
+    private static final int INFLATE_SAMPLE_COUNT = 100;
+    private static final int FRAMES_PER_STEP = 10;
+    private static final float FLING_INITIAL_VELOCITY = 400; // [dp / frame]
+    private static final float FLING_DECELERATION = 0.98f;
+    private static final float SWEEP_AMPLITUDE = 8; // [dp]
+    private static final int SWEEP_PERIOD = 60; // [frames]
+
+    private static final int PHASE_INFLATE = 0;
+    private static final int PHASE_INITIAL_LAYOUT = 1;
+    private static final int PHASE_FLING = 2;
+    private static final int PHASE_ELEVATION_SWEEP = 3;
+    private static final int PHASE_FINISHED = 4;
+
+    private final int mItemCount;
+    private final int mFrameCount;
+    private final int mShadowRenderingMode;
+    private final int mWidth;
+    private final int mHeight;
+
+    private final DrawableLoadCountingContext mContext;
+    private final float mDensity;
+    private final ItemAdapter mAdapter;
+    private final RecyclerView mRecyclerView;
+    private final Picture mPicture = new Picture();
+    private final StringBuilder mResult = new StringBuilder();
+    private final FrameStats mFlingStats;
+    private final FrameStats mSweepStats;
+
+    private int mPhase = PHASE_INFLATE;
+    private int mFrame;
+    private float mFlingVelocity;
+    private int mFlingDirection = 1;
+
+    public ShadowListBenchmark(Context context, int itemCount, int frameCount, int shadowRenderingMode, int width, int height) {
+        mItemCount = itemCount;
+        mFrameCount = frameCount;
+        mShadowRenderingMode = shadowRenderingMode;
+        mWidth = width;
+        mHeight = height;
+
+        mContext = new DrawableLoadCountingContext(context);
+        mDensity = mContext.getResources().getDisplayMetrics().density;
+        mAdapter = new ItemAdapter(mItemCount, mDensity, mShadowRenderingMode);
+        mRecyclerView = new RecyclerView(mContext);
+        mFlingStats = new FrameStats(mFrameCount);
+        mSweepStats = new FrameStats(mFrameCount);
+        mFlingVelocity = FLING_INITIAL_VELOCITY * mDensity;
+
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(mContext));
+        mRecyclerView.setAdapter(mAdapter);
+    }
+
+    /**
+     * Runs the next step of the benchmark (at most {@link #FRAMES_PER_STEP} frames).
+     * Call this repeatedly from separate messages so the UI thread does not block for long.
+     *
+     * @return whether the benchmark has been finished
+     */
+    public boolean runStep() {
+        switch (mPhase) {
+            case PHASE_INFLATE:
+                runInflate();
+                mPhase = PHASE_INITIAL_LAYOUT;
+                break;
+            case PHASE_INITIAL_LAYOUT:
+                runInitialLayout();
+                mPhase = PHASE_FLING;
+                break;
+            case PHASE_FLING:
+                if (runFrames(mFlingStats, true)) {
+                    mResult.append("fling:\n").append(mFlingStats.toString());
+                    mPhase = PHASE_ELEVATION_SWEEP;
+                }
+                break;
+            case PHASE_ELEVATION_SWEEP:
+                if (runFrames(mSweepStats, false)) {
+                    mResult.append("elevation sweep:\n").append(mSweepStats.toString());
+                    mPhase = PHASE_FINISHED;
+                }
+                break;
+        }
+
+        return (mPhase == PHASE_FINISHED);
+    }
+
+    public String getResult() {
+        return mResult.toString();
+    }
+
+    private void runInflate() {
+        final int drawableLoads0 = mContext.getDrawableLoadCount();
+        final long t0 = System.nanoTime();
+        boolean useCompatShadow = true;
+        for (int i = 0; i < INFLATE_SAMPLE_COUNT; i++) {
+            final ItemAdapter.ViewHolder holder = mAdapter.createViewHolder(mRecyclerView, 0);
+            mAdapter.bindViewHolder(holder, i % mItemCount);
+            useCompatShadow &= holder.container.useCompatShadow();
+        }
+        final long t1 = System.nanoTime();
+        final int drawableLoads = mContext.getDrawableLoadCount() - drawableLoads0;
+
+        mResult.append(String.format(Locale.US, "sdk=%d, compat=%b, mode=%s, items=%d, frames=%d, size=%dx%d\n",
+                Build.VERSION.SDK_INT, useCompatShadow, getShadowRenderingModeName(mShadowRenderingMode),
+                mItemCount, mFrameCount, mWidth, mHeight));
+        mResult.append(String.format(Locale.US, "inflate: %.1f us/row, %.2f drawable loads/row\n",
+                (t1 - t0) / 1000.0 / INFLATE_SAMPLE_COUNT, (float) drawableLoads / INFLATE_SAMPLE_COUNT));
+    }
+
+    private void runInitialLayout() {
+        final long t0 = System.nanoTime();
+        layout(mRecyclerView);
+        final long t1 = System.nanoTime();
+
+        mResult.append(String.format(Locale.US, "initial layout: %.1f us\n", (t1 - t0) / 1000.0));
+    }
+
+    // returns whether all frames of the phase have been run
+    private boolean runFrames(FrameStats stats, boolean fling) {
+        final int end = Math.min(mFrame + FRAMES_PER_STEP, mFrameCount);
+
+        for (; mFrame < end; mFrame++) {
+            if (fling) {
+                runFlingFrame(stats);
+            } else {
+                runElevationSweepFrame(stats, mFrame);
+            }
+        }
+
+        if (mFrame < mFrameCount) {
+            return false;
+        }
+
+        mFrame = 0;
+        return true;
+    }
+
+    private void runFlingFrame(FrameStats stats) {
+        final int dy = (int) (mFlingVelocity * mFlingDirection);
+
+        mFlingVelocity *= FLING_DECELERATION;
+        if (mFlingVelocity < mDensity) {
+            mFlingVelocity = FLING_INITIAL_VELOCITY * mDensity;
+            mFlingDirection = -mFlingDirection;
+        }
+
+        stats.beginFrame(mContext);
+        mRecyclerView.scrollBy(0, dy);
+        layout(mRecyclerView);
+        stats.endLayout();
+        draw(mRecyclerView, mPicture);
+        stats.endFrame(mContext);
+    }
+
+    private void runElevationSweepFrame(FrameStats stats, int frame) {
+        final float offset = (float) (SWEEP_AMPLITUDE * mDensity * 0.5 * (1.0 - Math.cos(2.0 * Math.PI * frame / SWEEP_PERIOD)));
+
+        stats.beginFrame(mContext);
+        mAdapter.setElevationOffset(offset);
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            final RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(mRecyclerView.getChildAt(i));
+            mAdapter.applyElevation((ItemAdapter.ViewHolder) holder, holder.getPosition());
+        }
+        layout(mRecyclerView);
+        stats.endLayout();
+        draw(mRecyclerView, mPicture);
+        stats.endFrame(mContext);
+    }
+
+    private void draw(View view, Picture picture) {
+        final Canvas canvas = picture.beginRecording(mWidth, mHeight);
+        view.draw(canvas);
+        picture.endRecording();
+    }
+
+    private void layout(View view) {
+        view.measure(
+                View.MeasureSpec.makeMeasureSpec(mWidth, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(mHeight, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, mWidth, mHeight);
+    }
+
+    public static String getShadowRenderingModeName(int mode) {
+        switch (mode) {
+            case MaterialShadowContainerView.SHADOW_RENDERING_MODE_STANDARD:
+                return "standard";
+            case MaterialShadowContainerView.SHADOW_RENDERING_MODE_MERGED:
+                return "merged";
+            case MaterialShadowContainerView.SHADOW_RENDERING_MODE_DISTANCE_FIELD:
+                return "distanceField";
+            default:
+                return "unknown";
+        }
+    }
+
+    private static class FrameStats {
+        private final long[] mLayoutNanos;
+        private final long[] mDrawNanos;
+        private final long[] mAllocations;
+        private final long[] mDrawableLoads;
+        private int mCount;
+
+        private long mFrameStartTime;
+        private long mLayoutEndTime;
+        private int mFrameStartAllocCount;
+        private int mFrameStartDrawableLoadCount;
+
+        FrameStats(int capacity) {
+            mLayoutNanos = new long[capacity];
+            mDrawNanos = new long[capacity];
+            mAllocations = new long[capacity];
+            mDrawableLoads = new long[capacity];
+        }
+
+        @SuppressWarnings("deprecation")
+        void beginFrame(DrawableLoadCountingContext context) {
+            Debug.startAllocCounting();
+            mFrameStartAllocCount = Debug.getThreadAllocCount();
+            mFrameStartDrawableLoadCount = context.getDrawableLoadCount();
+            mFrameStartTime = System.nanoTime();
+        }
+
+        void endLayout() {
+            mLayoutEndTime = System.nanoTime();
+        }
+
+        @SuppressWarnings("deprecation")
+        void endFrame(DrawableLoadCountingContext context) {
+            final long t = System.nanoTime();
+
+            mLayoutNanos[mCount] = mLayoutEndTime - mFrameStartTime;
+            mDrawNanos[mCount] = t - mLayoutEndTime;
+            mAllocations[mCount] = Debug.getThreadAllocCount() - mFrameStartAllocCount;
+            mDrawableLoads[mCount] = context.getDrawableLoadCount() - mFrameStartDrawableLoadCount;
+            mCount += 1;
+
+            Debug.stopAllocCounting();
+        }
+
+        @Override
+        public String toString() {
+            return formatLine("  layout [us]", mLayoutNanos, 0.001) +
+                    formatLine("  record [us]", mDrawNanos, 0.001) +
+                    formatLine("  allocations", mAllocations, 1.0) +
+                    formatLine("  drawable loads", mDrawableLoads, 1.0);
+        }
+
+        private String formatLine(String label, long[] values, double scale) {
+            final long[] sorted = Arrays.copyOf(values, mCount);
+            Arrays.sort(sorted);
+
+            if (sorted.length == 0) {
+                return label + ": (no samples)\n";
+            }
+
+            long sum = 0;
+            for (long v : sorted) {
+                sum += v;
+            }
+
+            return String.format(Locale.US, "%s: avg=%.1f, p50=%.1f, p90=%.1f, max=%.1f\n",
+                    label,
+                    scale * sum / sorted.length,
+                    scale * sorted[sorted.length / 2],
+                    scale * sorted[(int) (sorted.length * 0.9)],
+                    scale * sorted[sorted.length - 1]);
+        }
+    }
+
+    private static class ItemAdapter extends RecyclerView.Adapter<ItemAdapter.ViewHolder> {
+        private final int mItemCount;
+        private final float mDensity;
+        private final int mItemLayoutResId;
+        private float mElevationOffset;
+
+        static class ViewHolder extends RecyclerView.ViewHolder {
+            final MaterialShadowContainerView container;
+            final TextView textView;
+
+            ViewHolder(View itemView) {
+                super(itemView);
+                container = (MaterialShadowContainerView) itemView.findViewById(R.id.benchmark_item_container);
+                textView = (TextView) itemView.findViewById(R.id.benchmark_item_text);
+            }
+        }
+
+        ItemAdapter(int itemCount, float density, int shadowRenderingMode) {
+            mItemCount = itemCount;
+            mDensity = density;
+            mItemLayoutResId = getItemLayoutResId(shadowRenderingMode);
+        }
+
+        // NOTE: the rendering mode (and forceUseCompatShadow) are specified in the layout, so the shadow
+        // drawables are loaded only once on construction, as they are in an actual app
+        private static int getItemLayoutResId(int shadowRenderingMode) {
+            switch (shadowRenderingMode) {
+                case MaterialShadowContainerView.SHADOW_RENDERING_MODE_MERGED:
+                    return R.layout.benchmark_item_merged;
+                case MaterialShadowContainerView.SHADOW_RENDERING_MODE_DISTANCE_FIELD:
+                    return R.layout.benchmark_item_distance_field;
+                default:
+                    return R.layout.benchmark_item;
+            }
+        }
+
+        void setElevationOffset(float offset) {
+            mElevationOffset = offset;
+        }
+
+        void applyElevation(ViewHolder holder, int position) {
+            final float elevation = ELEVATIONS[(position * 7) % ELEVATIONS.length] * mDensity;
+            holder.container.bind(elevation + mElevationOffset, 0);
+        }
+
+        @Override
+        public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            final View v = LayoutInflater.from(parent.getContext()).inflate(mItemLayoutResId, parent, false);
+
+            return new ViewHolder(v);
+        }
+
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position) {
+            holder.textView.setText("#" + position);
+            applyElevation(holder, position);
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemCount;
+        }
+    }
+}
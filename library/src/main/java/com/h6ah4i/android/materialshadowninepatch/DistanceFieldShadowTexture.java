@@ -0,0 +1,218 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.materialshadowninepatch;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Rect;
+import android.graphics.drawable.NinePatchDrawable;
+import android.util.SparseArray;
+
+import java.util.HashMap;
+
+/**
+ * Distance field texture of a round rect edge.
+ *
+ * The texture stores the outside distance from the edge of the shape (1.0 on the edge
+ * and inside, 0.0 at {@code extent} pixels away from the edge). Shadow falloff and opacity
+ * are applied at draw time with a {@link ColorMatrixColorFilter}, so a shadow layer of any
+ * elevation is drawn with a single nine-patch.
+ *
+ * Color filters are cached per quantized Z position and shared between views, so changing
+ * the elevation every frame does not allocate once the cache is warmed up.
+ */
+class DistanceFieldShadowTexture {
+    private static final HashMap<String, DistanceFieldShadowTexture> sCache = new HashMap<String, DistanceFieldShadowTexture>();
+
+    private static final float COLOR_FILTER_Z_STEP = 0.25f; // [px]
+
+    private final Bitmap mBitmap;
+    private final byte[] mChunk;
+    private final Rect mPadding;
+    private final int mExtent;
+    private final float mDensity;
+    private final Layer mAmbientLayer;
+    private final Layer mSpotLayer;
+
+    private DistanceFieldShadowTexture(
+            Bitmap bitmap, byte[] chunk, Rect padding, int extent, float density,
+            float ambientAlpha, float ambientFalloffCoefficient,
+            float spotAlpha, float spotFalloffCoefficient) {
+        mBitmap = bitmap;
+        mChunk = chunk;
+        mPadding = padding;
+        mExtent = extent;
+        mDensity = density;
+        mAmbientLayer = new Layer(ambientAlpha, ambientFalloffCoefficient);
+        mSpotLayer = new Layer(spotAlpha, spotFalloffCoefficient);
+    }
+
+    public static DistanceFieldShadowTexture get(
+            Resources res, int cornerRadius, int extent,
+            float ambientAlpha, float ambientFalloffCoefficient,
+            float spotAlpha, float spotFalloffCoefficient) {
+        final int densityDpi = res.getDisplayMetrics().densityDpi;
+        final float density = res.getDisplayMetrics().density;
+        final String key = cornerRadius + ":" + extent + "@" + densityDpi + ":" +
+                ambientAlpha + ":" + ambientFalloffCoefficient + ":" + spotAlpha + ":" + spotFalloffCoefficient;
+
+        DistanceFieldShadowTexture texture;
+
+        // NOTE: may be called from a background thread (asynchronous inflation)
+        synchronized (sCache) {
+            texture = sCache.get(key);
+        }
+
+        if (texture != null) {
+            return texture;
+        }
+
+        // NOTE: the lock is not held while building the texture, so views requesting other
+        // textures are not blocked. The first one put into the cache wins.
+        final Bitmap bitmap = createBitmap(densityDpi, cornerRadius, extent);
+        final Rect padding = new Rect(extent, extent, extent, extent);
+        final byte[] chunk = NinePatchUtils.createChunk(bitmap.getWidth() / 2, bitmap.getHeight() / 2, padding);
+
+        final DistanceFieldShadowTexture newTexture = new DistanceFieldShadowTexture(
+                bitmap, chunk, padding, extent, density,
+                ambientAlpha, ambientFalloffCoefficient,
+                spotAlpha, spotFalloffCoefficient);
+
+        synchronized (sCache) {
+            texture = sCache.get(key);
+
+            if (texture == null) {
+                texture = newTexture;
+                sCache.put(key, texture);
+            }
+        }
+
+        return texture;
+    }
+
+    private static Bitmap createBitmap(int densityDpi, int cornerRadius, int extent) {
+        final int shapeSize = 2 * cornerRadius + 1;
+        final int size = shapeSize + 2 * extent;
+        final float shapeLeft = extent;
+        final float shapeRight = extent + shapeSize;
+        final float r = cornerRadius;
+        final float invExtent = 1.0f / extent;
+        final int[] pixels = new int[size * size];
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                final float px = x + 0.5f;
+                final float py = y + 0.5f;
+
+                // distance from the round rect edge (positive = outside)
+                final float cx = Math.min(Math.max(px, shapeLeft + r), shapeRight - r);
+                final float cy = Math.min(Math.max(py, shapeLeft + r), shapeRight - r);
+                final float dx = px - cx;
+                final float dy = py - cy;
+                final float d = (float) Math.sqrt(dx * dx + dy * dy) - r;
+
+                final float v = 1.0f - Math.min(Math.max(d * invExtent, 0.0f), 1.0f);
+
+                pixels[y * size + x] = ((int) (v * 255 + 0.5f)) << 24;
+            }
+        }
+
+        final Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ALPHA_8);
+        bitmap.setPixels(pixels, 0, size, 0, 0, size, size);
+        bitmap.setDensity(densityDpi);
+
+        return bitmap;
+    }
+
+    public NinePatchDrawable newDrawable(Resources res) {
+        return NinePatchUtils.createDrawable(res, mBitmap, mChunk, mPadding);
+    }
+
+    /**
+     * @param z Z position of the shadow casting view [px]
+     */
+    public ColorMatrixColorFilter getAmbientShadowColorFilter(float z) {
+        return mAmbientLayer.getColorFilter(z);
+    }
+
+    /**
+     * @param z Z position of the shadow casting view [px]
+     */
+    public ColorMatrixColorFilter getSpotShadowColorFilter(float z) {
+        return mSpotLayer.getColorFilter(z);
+    }
+
+    private class Layer {
+        private final float mAlpha;
+        private final float mFalloffCoefficient;
+        private final int mMaxKey;
+        private final float[] mMatrixValues = new float[20];
+        private final ColorMatrix mMatrix = new ColorMatrix();
+        private final SparseArray<ColorMatrixColorFilter> mColorFilters = new SparseArray<ColorMatrixColorFilter>();
+
+        Layer(float alpha, float falloffCoefficient) {
+            mAlpha = alpha;
+            mFalloffCoefficient = falloffCoefficient;
+
+            // both opacity and falloff saturate beyond this Z position
+            final float maxZ = Math.max(mExtent / falloffCoefficient, mDensity);
+            mMaxKey = (int) Math.ceil(maxZ / COLOR_FILTER_Z_STEP);
+        }
+
+        // NOTE: layers are shared between views which may be created on different threads
+        synchronized ColorMatrixColorFilter getColorFilter(float z) {
+            final int key = Math.min(Math.max((int) (z / COLOR_FILTER_Z_STEP + 0.5f), 0), mMaxKey);
+
+            ColorMatrixColorFilter filter = mColorFilters.get(key);
+
+            if (filter == null) {
+                final float qz = key * COLOR_FILTER_Z_STEP;
+
+                updateMatrixValues(mAlpha * Math.min(qz / mDensity, 1.0f), qz * mFalloffCoefficient);
+                mMatrix.set(mMatrixValues);
+
+                // NOTE: ColorMatrixColorFilter copies the matrix and cannot be modified afterwards
+                filter = new ColorMatrixColorFilter(mMatrix);
+                mColorFilters.put(key, filter);
+            }
+
+            return filter;
+        }
+
+        /**
+         * Maps the distance field to the shadow opacity.
+         *
+         * @param alpha   opacity of the shadow at the edge of the shape [0.0, 1.0]
+         * @param falloff distance (in pixels) where the shadow fades out
+         */
+        private void updateMatrixValues(float alpha, float falloff) {
+            // alpha_out = alpha * (1 - distance / falloff)
+            //           = alpha * (extent / falloff) * v - alpha * (extent - falloff) / falloff
+            final float f = Math.min(Math.max(falloff, 1.0f), mExtent);
+            final float[] m = mMatrixValues;
+
+            for (int i = 0; i < m.length; i++) {
+                m[i] = 0;
+            }
+
+            m[18] = alpha * mExtent / f;
+            m[19] = -alpha * (mExtent - f) / f * 255;
+        }
+    }
+}
@@ -34,8 +34,20 @@ import android.widget.FrameLayout;
 public class MaterialShadowContainerView extends FrameLayout {
     private static final String TAG = "ShadowContainerView";
 
+    public static final int SHADOW_RENDERING_MODE_STANDARD = 0;
+    public static final int SHADOW_RENDERING_MODE_MERGED = 1;
+    public static final int SHADOW_RENDERING_MODE_DISTANCE_FIELD = 2;
+
     private static final float SPOT_SHADOW_X_TRANSLATION_AMOUNT_COEFFICIENT = 0.0002f;
     private static final float SPOT_SHADOW_Y_TRANSLATION_AMOUNT_COEFFICIENT = 0.002f;
+    private static final float MERGED_SPOT_SHADOW_NOMINAL_Y_TRANSLATION_COEFFICIENT = 0.5f;
+
+    private static final float DISTANCE_FIELD_SHADOW_CORNER_RADIUS = 2.0f; // [dp]
+    private static final float DISTANCE_FIELD_SHADOW_MAX_Z = 24.0f; // [dp]
+    private static final float DISTANCE_FIELD_AMBIENT_SHADOW_ALPHA = 0.12f;
+    private static final float DISTANCE_FIELD_AMBIENT_SHADOW_FALLOFF_COEFFICIENT = 1.0f;
+    private static final float DISTANCE_FIELD_SPOT_SHADOW_ALPHA = 0.24f;
+    private static final float DISTANCE_FIELD_SPOT_SHADOW_FALLOFF_COEFFICIENT = 1.5f;
 
     private float mDisplayDensity;
     private float mInvDisplayDensity;
@@ -43,10 +55,25 @@ public class MaterialShadowContainerView extends FrameLayout {
     private int mLightPositionY;
     private int mSpotShadowTranslationX;
     private int mSpotShadowTranslationY;
+    private float mSpotShadowTranslationPerZX;
+    private float mSpotShadowTranslationPerZY;
+    private float mChildTranslationX;
+    private float mChildTranslationY;
     private float mShadowTranslationZ = 0;
     private float mShadowElevation = 0;
 
     private boolean mForceUseCompatShadow = false;
+    private int mShadowRenderingMode = SHADOW_RENDERING_MODE_STANDARD;
+    private boolean mShadowLayoutUpdatePending = false;
+    private boolean mAttachedToWindow = false;
+    private boolean mInvalidatePendingUntilAttached = false;
+
+    private int mShadowPropertyTransactionDepth;
+    private boolean mShadowPropertyTransactionUseCompatShadow;
+    private int mShadowPropertyTransactionShadowRenderingMode;
+    private int mShadowPropertyTransactionUpdateRequestCount;
+    private boolean mShadowPropertyTransactionDeferLayoutUpdate;
+    private int mSkippedShadowUpdateCount;
 
     private int[] mSpotShadowResourcesIdList;
     private int[] mAmbientShadowResourcesIdList;
@@ -62,6 +89,14 @@ public class MaterialShadowContainerView extends FrameLayout {
     private NinePatchDrawable mCurrentAmbientShadowDrawable1;
     private int mCurrentAmbientShadowDrawable2ResId;
     private NinePatchDrawable mCurrentAmbientShadowDrawable2;
+    private int mCurrentMergedShadowDrawable1Level = -1;
+    private NinePatchDrawable mCurrentMergedShadowDrawable1;
+    private int mCurrentMergedShadowDrawable2Level = -1;
+    private NinePatchDrawable mCurrentMergedShadowDrawable2;
+    private DistanceFieldShadowTexture mDistanceFieldShadowTexture;
+    private float mDistanceFieldShadowZ = -1;
+    private NinePatchDrawable mDistanceFieldAmbientShadowDrawable;
+    private NinePatchDrawable mDistanceFieldSpotShadowDrawable;
 
     private Rect mTempRect = new Rect();
     private int[] mTmpLocations = new int[2];
@@ -83,6 +118,7 @@ public class MaterialShadowContainerView extends FrameLayout {
         final int spotShadowLevelListResId = ta.getResourceId(R.styleable.MaterialShadowContainerView_spotShadowDrawablesList, R.array.ms9_spot_shadow_drawables);
         final int ambientShadowLevelListResId = ta.getResourceId(R.styleable.MaterialShadowContainerView_ambientShadowDrawablesList, R.array.ms9_ambient_shadow_drawables);
         final boolean forceUseCompatShadow = ta.getBoolean(R.styleable.MaterialShadowContainerView_forceUseCompatShadow, mForceUseCompatShadow);
+        final int shadowRenderingMode = ta.getInt(R.styleable.MaterialShadowContainerView_shadowRenderingMode, mShadowRenderingMode);
         ta.recycle();
 
         mSpotShadowResourcesIdList = getResourceIdArray(getResources(), spotShadowLevelListResId);
@@ -96,15 +132,65 @@ public class MaterialShadowContainerView extends FrameLayout {
         mShadowTranslationZ = shadowTranslationZ;
         mShadowElevation = shadowElevation;
         mForceUseCompatShadow = forceUseCompatShadow;
+        mShadowRenderingMode = shadowRenderingMode;
+
+        // NOTE: The constructor may be called on a background thread (e.g. asynchronous inflation).
+        // Only load drawables here; native shadow and invalidation are applied once attached to window.
+        if (useCompatShadow()) {
+            updateShadowLevelCompat(mShadowTranslationZ, mShadowElevation, true, true);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        mAttachedToWindow = true;
 
-        updateShadowLevel(true);
+        if (!useCompatShadow()) {
+            updateShadowLevelNative(mShadowTranslationZ, mShadowElevation, false);
+        }
+
+        if (mInvalidatePendingUntilAttached) {
+            mInvalidatePendingUntilAttached = false;
+            invalidateShadow();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        mAttachedToWindow = false;
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
+        if (mShadowLayoutUpdatePending) {
+            // no layout pass followed the deferred update (e.g. rebind with the same size);
+            // reuse the light position related factors calculated on the last layout
+            mShadowLayoutUpdatePending = false;
+            updateSpotShadowTranslation();
+            updateShadowDrawableBounds();
+        }
+
         if ((getChildCount() > 0) && (getChildAt(0).getVisibility() == View.VISIBLE)) {
+            if (mCurrentMergedShadowDrawable1 != null) {
+                mCurrentMergedShadowDrawable1.draw(canvas);
+            }
+            if (mCurrentMergedShadowDrawable2 != null) {
+                mCurrentMergedShadowDrawable2.draw(canvas);
+            }
+
+            if (mDistanceFieldAmbientShadowDrawable != null) {
+                mDistanceFieldAmbientShadowDrawable.draw(canvas);
+            }
+            if (mDistanceFieldSpotShadowDrawable != null) {
+                mDistanceFieldSpotShadowDrawable.draw(canvas);
+            }
+
             if (mCurrentAmbientShadowDrawable1 != null) {
                 mCurrentAmbientShadowDrawable1.draw(canvas);
             }
@@ -134,8 +220,72 @@ public class MaterialShadowContainerView extends FrameLayout {
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
 
-        updateShadowDrawableBounds();
-        updateSpotShadowPosition();
+        updateShadowDrawableBoundsAndPosition();
+    }
+
+    public void bind(float elevation, float translationZ) {
+        if (mShadowElevation == elevation && mShadowTranslationZ == translationZ) {
+            return;
+        }
+
+        mShadowElevation = elevation;
+        mShadowTranslationZ = translationZ;
+
+        // bounds and spot shadow position are updated on next layout (or draw)
+        requestShadowLevelUpdate(true);
+    }
+
+    public void beginShadowPropertyTransaction() {
+        if (mShadowPropertyTransactionDepth == 0) {
+            mShadowPropertyTransactionUseCompatShadow = useCompatShadow();
+            mShadowPropertyTransactionShadowRenderingMode = mShadowRenderingMode;
+            mShadowPropertyTransactionUpdateRequestCount = 0;
+            mShadowPropertyTransactionDeferLayoutUpdate = true;
+        }
+
+        mShadowPropertyTransactionDepth += 1;
+    }
+
+    public void commitShadowPropertyTransaction() {
+        if (mShadowPropertyTransactionDepth <= 0) {
+            throw new IllegalStateException("beginShadowPropertyTransaction() has not been called");
+        }
+
+        mShadowPropertyTransactionDepth -= 1;
+
+        if (mShadowPropertyTransactionDepth > 0 || mShadowPropertyTransactionUpdateRequestCount == 0) {
+            return;
+        }
+
+        mSkippedShadowUpdateCount += (mShadowPropertyTransactionUpdateRequestCount - 1);
+        mShadowPropertyTransactionUpdateRequestCount = 0;
+
+        final boolean curUseCompatShadow = useCompatShadow();
+
+        if (mShadowPropertyTransactionUseCompatShadow != curUseCompatShadow) {
+            applyUseCompatShadowChanged(curUseCompatShadow);
+        } else if (mShadowPropertyTransactionShadowRenderingMode != mShadowRenderingMode) {
+            applyShadowRenderingModeChanged();
+        } else {
+            updateShadowLevel(false, mShadowPropertyTransactionDeferLayoutUpdate);
+        }
+    }
+
+    public boolean isInShadowPropertyTransaction() {
+        return (mShadowPropertyTransactionDepth > 0);
+    }
+
+    public int getSkippedShadowUpdateCount() {
+        return mSkippedShadowUpdateCount;
+    }
+
+    private void requestShadowLevelUpdate(boolean deferLayoutUpdate) {
+        if (mShadowPropertyTransactionDepth > 0) {
+            mShadowPropertyTransactionUpdateRequestCount += 1;
+            mShadowPropertyTransactionDeferLayoutUpdate &= deferLayoutUpdate;
+        } else {
+            updateShadowLevel(false, deferLayoutUpdate);
+        }
     }
 
     public void setShadowTranslationZ(float translationZ) {
@@ -145,7 +295,7 @@ public class MaterialShadowContainerView extends FrameLayout {
 
         mShadowTranslationZ = translationZ;
 
-        updateShadowLevel(false);
+        requestShadowLevelUpdate(false);
     }
 
     public float getShadowTranslationZ() {
@@ -159,7 +309,7 @@ public class MaterialShadowContainerView extends FrameLayout {
 
         mShadowElevation = elevation;
 
-        updateShadowLevel(false);
+        requestShadowLevelUpdate(false);
     }
 
     public float getShadowElevation() {
@@ -178,16 +328,59 @@ public class MaterialShadowContainerView extends FrameLayout {
         final boolean curUseCompatShadow = useCompatShadow();
 
         if (prevUseCompatShadow != curUseCompatShadow) {
-            // disable native shadow
-            if (curUseCompatShadow && supportsNativeShadow()) {
-                updateShadowLevelNative(0.0f, 0.0f, true);
+            if (mShadowPropertyTransactionDepth > 0) {
+                // applied on commit
+                mShadowPropertyTransactionUpdateRequestCount += 1;
+                mShadowPropertyTransactionDeferLayoutUpdate = false;
+            } else {
+                applyUseCompatShadowChanged(curUseCompatShadow);
             }
+        }
+    }
+
+    private void applyUseCompatShadowChanged(boolean curUseCompatShadow) {
+        // disable native shadow
+        if (curUseCompatShadow && supportsNativeShadow()) {
+            updateShadowLevelNative(0.0f, 0.0f, true);
+        }
+
+        // apply
+        updateShadowLevel(true, false);
+    }
+
+    public void setShadowRenderingMode(int mode) {
+        if (mode != SHADOW_RENDERING_MODE_STANDARD &&
+                mode != SHADOW_RENDERING_MODE_MERGED &&
+                mode != SHADOW_RENDERING_MODE_DISTANCE_FIELD) {
+            throw new IllegalArgumentException("Unknown shadow rendering mode: " + mode);
+        }
+
+        if (mShadowRenderingMode == mode) {
+            return;
+        }
+
+        mShadowRenderingMode = mode;
 
-            // apply
-            updateShadowLevel(true);
+        if (mShadowPropertyTransactionDepth > 0) {
+            // applied on commit
+            mShadowPropertyTransactionUpdateRequestCount += 1;
+            mShadowPropertyTransactionDeferLayoutUpdate = false;
+        } else {
+            applyShadowRenderingModeChanged();
         }
     }
 
+    private void applyShadowRenderingModeChanged() {
+        if (useCompatShadow()) {
+            clearShadowDrawables();
+            updateShadowLevel(true, false);
+        }
+    }
+
+    public int getShadowRenderingMode() {
+        return mShadowRenderingMode;
+    }
+
     public boolean useCompatShadow() {
         if (!supportsNativeShadow()) {
             return true;
@@ -214,7 +407,12 @@ public class MaterialShadowContainerView extends FrameLayout {
         }
     }
 
-    private void updateShadowLevelCompat(float translationZ, float elevation, boolean force) {
+    private void updateShadowLevelCompat(float translationZ, float elevation, boolean force, boolean deferLayoutUpdate) {
+        if (mShadowRenderingMode == SHADOW_RENDERING_MODE_DISTANCE_FIELD) {
+            updateShadowLevelDistanceField(translationZ, elevation, force, deferLayoutUpdate);
+            return;
+        }
+
         final float floatLevel = Math.max((translationZ + elevation) * mInvDisplayDensity, 0.0f);
         final int intLevel = (int) floatLevel;
         final int spotLevel1 = Math.min(intLevel, mMaxSpotShadowLevel);
@@ -228,7 +426,34 @@ public class MaterialShadowContainerView extends FrameLayout {
         final int ambientShadow1ResId = (mAmbientShadowResourcesIdList != null) ? mAmbientShadowResourcesIdList[ambientLevel1] : 0;
         final int ambientShadow2ResId = (mAmbientShadowResourcesIdList != null) ? mAmbientShadowResourcesIdList[ambientLevel2] : 0;
 
-        if (force ||
+        if (mShadowRenderingMode == SHADOW_RENDERING_MODE_MERGED) {
+            final int maxLevel = Math.max(mMaxSpotShadowLevel, mMaxAmbientShadowLevel);
+            final int mergedLevel1 = Math.min(intLevel, maxLevel);
+            final int mergedLevel2 = Math.min(intLevel + 1, maxLevel);
+
+            if (force ||
+                    mergedLevel1 != mCurrentMergedShadowDrawable1Level ||
+                    mergedLevel2 != mCurrentMergedShadowDrawable2Level) {
+
+                if (mergedLevel1 != mCurrentMergedShadowDrawable1Level) {
+                    mCurrentMergedShadowDrawable1 = getMergedShadowDrawable(mergedLevel1, spotShadow1ResId, ambientShadow1ResId);
+                    mCurrentMergedShadowDrawable1Level = mergedLevel1;
+                }
+
+                if (mergedLevel2 != mCurrentMergedShadowDrawable2Level) {
+                    mCurrentMergedShadowDrawable2 = (mergedLevel2 == mergedLevel1) ? null : getMergedShadowDrawable(mergedLevel2, spotShadow2ResId, ambientShadow2ResId);
+                    mCurrentMergedShadowDrawable2Level = (mergedLevel2 == mergedLevel1) ? -1 : mergedLevel2;
+                }
+
+                if (deferLayoutUpdate) {
+                    mShadowLayoutUpdatePending = true;
+                } else {
+                    updateShadowDrawableBounds();
+                }
+
+                updateWillNotDraw();
+            }
+        } else if (force ||
                 spotShadow1ResId != mCurrentSpotShadowDrawable1ResId ||
                 spotShadow2ResId != mCurrentSpotShadowDrawable2ResId ||
                 ambientShadow1ResId != mCurrentAmbientShadowDrawable1ResId ||
@@ -253,8 +478,12 @@ public class MaterialShadowContainerView extends FrameLayout {
                 mCurrentAmbientShadowDrawable2 = (ambientShadow2ResId == ambientShadow1ResId) ? null : getNinePatchDrawableFromResource(ambientShadow2ResId);
                 mCurrentAmbientShadowDrawable2ResId = (ambientShadow2ResId == ambientShadow1ResId) ? 0 : ambientShadow2ResId;
             }
-            updateShadowDrawableBounds();
-            updateSpotShadowPosition();
+
+            if (deferLayoutUpdate) {
+                mShadowLayoutUpdatePending = true;
+            } else {
+                updateShadowDrawableBoundsAndPosition();
+            }
 
             updateWillNotDraw();
         }
@@ -263,39 +492,100 @@ public class MaterialShadowContainerView extends FrameLayout {
         final int alpha1 = 255 - Math.min(Math.max((int) ((floatLevel - intLevel) * 255 + 0.5f), 0), 255);
         final int alpha2 = 255 - alpha1;
 
-        if (mCurrentSpotShadowDrawable1 != null) {
-            if (mCurrentSpotShadowDrawable2 != null) {
-                mCurrentSpotShadowDrawable1.setAlpha(alpha1);
+        updateShadowDrawablesAlpha(mCurrentSpotShadowDrawable1, mCurrentSpotShadowDrawable2, alpha1, alpha2);
+        updateShadowDrawablesAlpha(mCurrentAmbientShadowDrawable1, mCurrentAmbientShadowDrawable2, alpha1, alpha2);
+        updateShadowDrawablesAlpha(mCurrentMergedShadowDrawable1, mCurrentMergedShadowDrawable2, alpha1, alpha2);
+
+        // invalidate
+        invalidateShadow();
+    }
+
+    private void updateShadowLevelDistanceField(float translationZ, float elevation, boolean force, boolean deferLayoutUpdate) {
+        final float z = Math.max(translationZ + elevation, 0.0f);
+        final boolean hasShadow = (z > 0.0f) && !isInEditMode();
+
+        final boolean drawablesChanged = force || (hasShadow != (mDistanceFieldAmbientShadowDrawable != null));
+
+        if (drawablesChanged) {
+            if (hasShadow) {
+                if (mDistanceFieldShadowTexture == null) {
+                    mDistanceFieldShadowTexture = DistanceFieldShadowTexture.get(
+                            getResources(),
+                            (int) (DISTANCE_FIELD_SHADOW_CORNER_RADIUS * mDisplayDensity + 0.5f),
+                            (int) Math.ceil(DISTANCE_FIELD_SHADOW_MAX_Z * DISTANCE_FIELD_SPOT_SHADOW_FALLOFF_COEFFICIENT * mDisplayDensity),
+                            DISTANCE_FIELD_AMBIENT_SHADOW_ALPHA, DISTANCE_FIELD_AMBIENT_SHADOW_FALLOFF_COEFFICIENT,
+                            DISTANCE_FIELD_SPOT_SHADOW_ALPHA, DISTANCE_FIELD_SPOT_SHADOW_FALLOFF_COEFFICIENT);
+                }
+                mDistanceFieldAmbientShadowDrawable = mDistanceFieldShadowTexture.newDrawable(getResources());
+                mDistanceFieldSpotShadowDrawable = mDistanceFieldShadowTexture.newDrawable(getResources());
             } else {
-                mCurrentSpotShadowDrawable1.setAlpha(255);
+                mDistanceFieldAmbientShadowDrawable = null;
+                mDistanceFieldSpotShadowDrawable = null;
             }
+
+            mDistanceFieldShadowZ = -1;
+
+            updateWillNotDraw();
         }
 
-        if (mCurrentSpotShadowDrawable2 != null) {
-            mCurrentSpotShadowDrawable2.setAlpha(alpha2);
+        // update falloff and opacity
+        if (hasShadow && z != mDistanceFieldShadowZ) {
+            mDistanceFieldAmbientShadowDrawable.setColorFilter(mDistanceFieldShadowTexture.getAmbientShadowColorFilter(z));
+            mDistanceFieldSpotShadowDrawable.setColorFilter(mDistanceFieldShadowTexture.getSpotShadowColorFilter(z));
+
+            mDistanceFieldShadowZ = z;
         }
 
-        if (mCurrentAmbientShadowDrawable1 != null) {
-            if (mCurrentAmbientShadowDrawable2 != null) {
-                mCurrentAmbientShadowDrawable1.setAlpha(alpha1);
+        if (drawablesChanged) {
+            if (deferLayoutUpdate) {
+                mShadowLayoutUpdatePending = true;
             } else {
-                mCurrentAmbientShadowDrawable1.setAlpha(255);
+                updateShadowDrawableBoundsAndPosition();
             }
+        } else if (!mShadowLayoutUpdatePending && updateSpotShadowTranslation()) {
+            // spot shadow offset depends on the Z position
+            updateShadowDrawableBounds();
         }
 
-        if (mCurrentAmbientShadowDrawable2 != null) {
-            mCurrentAmbientShadowDrawable2.setAlpha(alpha2);
+        // invalidate
+        invalidateShadow();
+    }
+
+    private void invalidateShadow() {
+        if (willNotDraw()) {
+            return;
         }
 
-        // invalidate
-        if (!willNotDraw()) {
+        if (mAttachedToWindow) {
             ViewCompat.postInvalidateOnAnimation(this);
+        } else {
+            mInvalidatePendingUntilAttached = true;
+        }
+    }
+
+    private static void updateShadowDrawablesAlpha(NinePatchDrawable drawable1, NinePatchDrawable drawable2, int alpha1, int alpha2) {
+        if (drawable1 != null) {
+            if (drawable2 != null) {
+                drawable1.setAlpha(alpha1);
+            } else {
+                drawable1.setAlpha(255);
+            }
+        }
+
+        if (drawable2 != null) {
+            drawable2.setAlpha(alpha2);
         }
     }
 
-    private void updateShadowLevel(boolean force) {
+    private NinePatchDrawable getMergedShadowDrawable(int level, int spotShadowResId, int ambientShadowResId) {
+        final int spotShadowOffsetY = (int) (level * mDisplayDensity * MERGED_SPOT_SHADOW_NOMINAL_Y_TRANSLATION_COEFFICIENT + 0.5f);
+
+        return MergedShadowNinePatchCache.get(getContext(), spotShadowResId, ambientShadowResId, spotShadowOffsetY);
+    }
+
+    private void updateShadowLevel(boolean force, boolean deferLayoutUpdate) {
         if (useCompatShadow()) {
-            updateShadowLevelCompat(mShadowTranslationZ, mShadowElevation, force);
+            updateShadowLevelCompat(mShadowTranslationZ, mShadowElevation, force, deferLayoutUpdate);
         } else {
             updateShadowLevelNative(mShadowTranslationZ, mShadowElevation, force);
         }
@@ -303,14 +593,7 @@ public class MaterialShadowContainerView extends FrameLayout {
 
     private void updateShadowLevelNative(float translationZ, float elevation, boolean force) {
         if (force) {
-            mCurrentSpotShadowDrawable1 = null;
-            mCurrentSpotShadowDrawable1ResId = 0;
-            mCurrentSpotShadowDrawable2 = null;
-            mCurrentSpotShadowDrawable2ResId = 0;
-            mCurrentAmbientShadowDrawable1 = null;
-            mCurrentAmbientShadowDrawable1ResId = 0;
-            mCurrentAmbientShadowDrawable2 = null;
-            mCurrentAmbientShadowDrawable2ResId = 0;
+            clearShadowDrawables();
             updateWillNotDraw();
         }
 
@@ -322,12 +605,34 @@ public class MaterialShadowContainerView extends FrameLayout {
         }
     }
 
+    private void clearShadowDrawables() {
+        mCurrentSpotShadowDrawable1 = null;
+        mCurrentSpotShadowDrawable1ResId = 0;
+        mCurrentSpotShadowDrawable2 = null;
+        mCurrentSpotShadowDrawable2ResId = 0;
+        mCurrentAmbientShadowDrawable1 = null;
+        mCurrentAmbientShadowDrawable1ResId = 0;
+        mCurrentAmbientShadowDrawable2 = null;
+        mCurrentAmbientShadowDrawable2ResId = 0;
+        mCurrentMergedShadowDrawable1 = null;
+        mCurrentMergedShadowDrawable1Level = -1;
+        mCurrentMergedShadowDrawable2 = null;
+        mCurrentMergedShadowDrawable2Level = -1;
+        mDistanceFieldAmbientShadowDrawable = null;
+        mDistanceFieldSpotShadowDrawable = null;
+        mDistanceFieldShadowZ = -1;
+    }
+
     private boolean updateWillNotDraw() {
         boolean willNotDraw =
                 mCurrentSpotShadowDrawable1 == null &&
                         mCurrentSpotShadowDrawable2 == null &&
                         mCurrentAmbientShadowDrawable1 == null &&
                         mCurrentAmbientShadowDrawable2 == null &&
+                        mCurrentMergedShadowDrawable1 == null &&
+                        mCurrentMergedShadowDrawable2 == null &&
+                        mDistanceFieldAmbientShadowDrawable == null &&
+                        mDistanceFieldSpotShadowDrawable == null &&
                         getBackground() == null &&
                         getForeground() == null;
         setWillNotDraw(willNotDraw);
@@ -335,6 +640,13 @@ public class MaterialShadowContainerView extends FrameLayout {
         return willNotDraw;
     }
 
+    private void updateShadowDrawableBoundsAndPosition() {
+        mShadowLayoutUpdatePending = false;
+
+        updateSpotShadowPosition();
+        updateShadowDrawableBounds();
+    }
+
     private void updateShadowDrawableBounds() {
         if (getChildCount() <= 0) {
             return;
@@ -356,6 +668,14 @@ public class MaterialShadowContainerView extends FrameLayout {
         if (mCurrentAmbientShadowDrawable1 != mCurrentAmbientShadowDrawable2) {
             updateNinePatchBounds(mCurrentAmbientShadowDrawable2, childLeft, childTop, childRight, childBottom);
         }
+
+        updateNinePatchBounds(mCurrentMergedShadowDrawable1, childLeft, childTop, childRight, childBottom);
+        updateNinePatchBounds(mCurrentMergedShadowDrawable2, childLeft, childTop, childRight, childBottom);
+
+        updateNinePatchBounds(mDistanceFieldAmbientShadowDrawable, childLeft, childTop, childRight, childBottom);
+        updateNinePatchBounds(mDistanceFieldSpotShadowDrawable,
+                childLeft + mSpotShadowTranslationX, childTop + mSpotShadowTranslationY,
+                childRight + mSpotShadowTranslationX, childBottom + mSpotShadowTranslationY);
     }
 
     private void updateNinePatchBounds(NinePatchDrawable ninePatch, int childLeft, int childTop, int childRight, int childBottom) {
@@ -384,29 +704,41 @@ public class MaterialShadowContainerView extends FrameLayout {
 
         childView.getLocationInWindow(mTmpLocations);
 
-        final float zPosition = (mShadowTranslationZ + mShadowElevation);
-        final float tx = ViewCompat.getTranslationX(childView);
-        final float ty = ViewCompat.getTranslationY(childView);
-
         final int childWidth = childView.getWidth();
         final int childHeight = childView.getHeight();
 
         final int childCenterPosX = mTmpLocations[0] + (childWidth / 2);
         final int childCenterPosY = mTmpLocations[1] + (childHeight / 2);
 
-        final float positionRelatedTranslationX = (float) Math.sqrt((childCenterPosX - mLightPositionX) * mInvDisplayDensity * SPOT_SHADOW_X_TRANSLATION_AMOUNT_COEFFICIENT) * zPosition;
-        final float positionRelatedTranslationY =  (float) Math.sqrt((childCenterPosY - mLightPositionY) * mInvDisplayDensity * SPOT_SHADOW_Y_TRANSLATION_AMOUNT_COEFFICIENT) * zPosition;
+        mSpotShadowTranslationPerZX = (float) Math.sqrt((childCenterPosX - mLightPositionX) * mInvDisplayDensity * SPOT_SHADOW_X_TRANSLATION_AMOUNT_COEFFICIENT);
+        mSpotShadowTranslationPerZY = (float) Math.sqrt((childCenterPosY - mLightPositionY) * mInvDisplayDensity * SPOT_SHADOW_Y_TRANSLATION_AMOUNT_COEFFICIENT);
+        mChildTranslationX = ViewCompat.getTranslationX(childView);
+        mChildTranslationY = ViewCompat.getTranslationY(childView);
 
-        mSpotShadowTranslationX = (int) (positionRelatedTranslationX + tx + 0.5f);
-        mSpotShadowTranslationY = (int) (positionRelatedTranslationY + ty + 0.5f);
+        updateSpotShadowTranslation();
+    }
+
+    // NOTE: cheap version of updateSpotShadowPosition(); reuses the light position related factors
+    private boolean updateSpotShadowTranslation() {
+        final float zPosition = (mShadowTranslationZ + mShadowElevation);
+        final int translationX = (int) (mSpotShadowTranslationPerZX * zPosition + mChildTranslationX + 0.5f);
+        final int translationY = (int) (mSpotShadowTranslationPerZY * zPosition + mChildTranslationY + 0.5f);
+
+        if (translationX == mSpotShadowTranslationX && translationY == mSpotShadowTranslationY) {
+            return false;
+        }
+
+        mSpotShadowTranslationX = translationX;
+        mSpotShadowTranslationY = translationY;
+
+        return true;
     }
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
 
-        updateShadowDrawableBounds();
-        updateSpotShadowPosition();
+        updateShadowDrawableBoundsAndPosition();
 
         if (requiresChildViewLayoutFix()) {
             fixChildViewGravity();
@@ -0,0 +1,223 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.materialshadowninepatch;
+
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.NinePatchDrawable;
+import android.os.Build;
+import android.support.v4.util.LruCache;
+
+/**
+ * Generates and caches pre-composited (ambient + spot) shadow nine-patches.
+ *
+ * Shadows are black, so composites are stored as {@link Bitmap.Config#ALPHA_8} bitmaps.
+ * The cache is bounded by the total bitmap size and cleared when the system asks to trim memory.
+ */
+class MergedShadowNinePatchCache {
+    private static final int MAX_CACHE_SIZE = 2 * 1024 * 1024; // [bytes]
+
+    private static final LruCache<String, Entry> sCache = new LruCache<String, Entry>(MAX_CACHE_SIZE) {
+        @Override
+        protected int sizeOf(String key, Entry value) {
+            return value.bitmap.getRowBytes() * value.bitmap.getHeight();
+        }
+    };
+
+    private static boolean sTrimMemoryCallbacksRegistered;
+
+    private static class Entry {
+        final Bitmap bitmap;
+        final byte[] chunk;
+        final Rect padding;
+
+        Entry(Bitmap bitmap, byte[] chunk, Rect padding) {
+            this.bitmap = bitmap;
+            this.chunk = chunk;
+            this.padding = padding;
+        }
+    }
+
+    private MergedShadowNinePatchCache() {
+    }
+
+    public static NinePatchDrawable get(Context context, int spotShadowResId, int ambientShadowResId, int spotShadowOffsetY) {
+        if (spotShadowResId == 0 && ambientShadowResId == 0) {
+            return null;
+        }
+
+        final Resources res = context.getResources();
+        final String key = spotShadowResId + ":" + ambientShadowResId + ":" + spotShadowOffsetY + "@" + res.getDisplayMetrics().densityDpi;
+
+        Entry entry;
+
+        // NOTE: may be called from a background thread (asynchronous inflation)
+        synchronized (sCache) {
+            registerTrimMemoryCallbacks(context);
+
+            entry = sCache.get(key);
+        }
+
+        if (entry == null) {
+            // NOTE: the lock is not held while compositing, so views requesting other
+            // entries are not blocked. The first one put into the cache wins.
+            final Entry newEntry = createEntry(res, spotShadowResId, ambientShadowResId, spotShadowOffsetY);
+
+            if (newEntry == null) {
+                return null;
+            }
+
+            synchronized (sCache) {
+                entry = sCache.get(key);
+
+                if (entry == null) {
+                    entry = newEntry;
+                    sCache.put(key, entry);
+                }
+            }
+        }
+
+        return NinePatchUtils.createDrawable(res, entry.bitmap, entry.chunk, entry.padding);
+    }
+
+    private static Entry createEntry(Resources res, int spotShadowResId, int ambientShadowResId, int spotShadowOffsetY) {
+        final NinePatchDrawable spot = loadNinePatchDrawable(res, spotShadowResId);
+        final NinePatchDrawable ambient = loadNinePatchDrawable(res, ambientShadowResId);
+
+        if (spot == null && ambient == null) {
+            return null;
+        }
+
+        final Rect spotPadding = new Rect();
+        final Rect ambientPadding = new Rect();
+
+        if (spot != null) {
+            spot.getPadding(spotPadding);
+        }
+        if (ambient != null) {
+            ambient.getPadding(ambientPadding);
+        }
+
+        // nominal content size; large enough to make the center row/column
+        // fall into the stretchable area of both source nine-patches
+        final int contentWidth = Math.max(getIntrinsicWidth(spot), getIntrinsicWidth(ambient)) + 2;
+        final int contentHeight = Math.max(getIntrinsicHeight(spot), getIntrinsicHeight(ambient)) + 2 * Math.abs(spotShadowOffsetY) + 2;
+
+        final Rect padding = new Rect(
+                Math.max(0, Math.max(ambientPadding.left, spotPadding.left)),
+                Math.max(0, Math.max(ambientPadding.top, spotPadding.top - spotShadowOffsetY)),
+                Math.max(0, Math.max(ambientPadding.right, spotPadding.right)),
+                Math.max(0, Math.max(ambientPadding.bottom, spotPadding.bottom + spotShadowOffsetY)));
+
+        final int width = padding.left + contentWidth + padding.right;
+        final int height = padding.top + contentHeight + padding.bottom;
+
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        bitmap.setDensity(res.getDisplayMetrics().densityDpi);
+
+        final Canvas canvas = new Canvas(bitmap);
+        final int contentLeft = padding.left;
+        final int contentTop = padding.top;
+        final int contentRight = contentLeft + contentWidth;
+        final int contentBottom = contentTop + contentHeight;
+
+        if (ambient != null) {
+            ambient.setBounds(
+                    contentLeft - ambientPadding.left, contentTop - ambientPadding.top,
+                    contentRight + ambientPadding.right, contentBottom + ambientPadding.bottom);
+            ambient.draw(canvas);
+        }
+
+        if (spot != null) {
+            spot.setBounds(
+                    contentLeft - spotPadding.left, contentTop - spotPadding.top + spotShadowOffsetY,
+                    contentRight + spotPadding.right, contentBottom + spotPadding.bottom + spotShadowOffsetY);
+            spot.draw(canvas);
+        }
+
+        final byte[] chunk = NinePatchUtils.createChunk(
+                contentLeft + contentWidth / 2, contentTop + contentHeight / 2, padding);
+
+        return new Entry(bitmap, chunk, padding);
+    }
+
+    private static void registerTrimMemoryCallbacks(Context context) {
+        if (sTrimMemoryCallbacksRegistered || Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+
+        if (appContext == null) {
+            return;
+        }
+
+        TrimMemoryCallbacks.register(appContext);
+        sTrimMemoryCallbacksRegistered = true;
+    }
+
+    @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+    private static class TrimMemoryCallbacks implements ComponentCallbacks2 {
+        static void register(Context appContext) {
+            appContext.registerComponentCallbacks(new TrimMemoryCallbacks());
+        }
+
+        @Override
+        public void onTrimMemory(int level) {
+            // NOTE: drawables already in use keep their own reference to the bitmap
+            if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                sCache.evictAll();
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            sCache.evictAll();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    }
+
+    private static NinePatchDrawable loadNinePatchDrawable(Resources res, int resId) {
+        final Drawable drawable = (resId != 0) ? res.getDrawable(resId) : null;
+
+        if (drawable instanceof NinePatchDrawable) {
+            final NinePatchDrawable ninePatch = (NinePatchDrawable) drawable.mutate();
+            ninePatch.setAlpha(255);
+            return ninePatch;
+        } else {
+            return null;
+        }
+    }
+
+    private static int getIntrinsicWidth(Drawable drawable) {
+        return (drawable != null) ? Math.max(drawable.getIntrinsicWidth(), 0) : 0;
+    }
+
+    private static int getIntrinsicHeight(Drawable drawable) {
+        return (drawable != null) ? Math.max(drawable.getIntrinsicHeight(), 0) : 0;
+    }
+}
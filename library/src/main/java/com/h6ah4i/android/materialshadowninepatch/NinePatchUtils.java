@@ -0,0 +1,81 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.materialshadowninepatch;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.graphics.drawable.NinePatchDrawable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+class NinePatchUtils {
+    // NOTE: these values are defined in frameworks/base/include/androidfw/ResourceTypes.h
+    private static final int NO_COLOR = 0x00000001;
+    private static final int NUM_REGIONS = 9;
+
+    private NinePatchUtils() {
+    }
+
+    /**
+     * Creates serialized nine-patch chunk which has single stretchable column and row.
+     */
+    public static byte[] createChunk(int stretchX, int stretchY, Rect padding) {
+        final ByteBuffer buffer = ByteBuffer
+                .allocate(32 + (4 * 4) + (4 * NUM_REGIONS))
+                .order(ByteOrder.nativeOrder());
+
+        // header
+        buffer.put((byte) 0x01); // wasDeserialized
+        buffer.put((byte) 2); // numXDivs
+        buffer.put((byte) 2); // numYDivs
+        buffer.put((byte) NUM_REGIONS); // numColors
+
+        // xDivsOffset, yDivsOffset (not used)
+        buffer.putInt(0);
+        buffer.putInt(0);
+
+        // padding
+        buffer.putInt(padding.left);
+        buffer.putInt(padding.right);
+        buffer.putInt(padding.top);
+        buffer.putInt(padding.bottom);
+
+        // colorsOffset (not used)
+        buffer.putInt(0);
+
+        // xDivs
+        buffer.putInt(stretchX);
+        buffer.putInt(stretchX + 1);
+
+        // yDivs
+        buffer.putInt(stretchY);
+        buffer.putInt(stretchY + 1);
+
+        // colors
+        for (int i = 0; i < NUM_REGIONS; i++) {
+            buffer.putInt(NO_COLOR);
+        }
+
+        return buffer.array();
+    }
+
+    public static NinePatchDrawable createDrawable(Resources res, Bitmap bitmap, byte[] chunk, Rect padding) {
+        return new NinePatchDrawable(res, bitmap, chunk, new Rect(padding), null);
+    }
+}